@@ -0,0 +1,81 @@
+package aiss.gitminer.jmh;
+
+import aiss.gitminer.controller.CommentController;
+import aiss.gitminer.controller.IssueControler;
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// Busquedas de deduplicacion de createIssue / createComment: contenido ya existente (solo lectura)
+// y contenido nuevo (lectura + insercion)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DedupBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private IssueControler issueControler;
+    private CommentController commentController;
+
+    private Issue existingIssue;
+    private Comment existingComment;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("jmh-dedup");
+        issueControler = context.getBean(IssueControler.class);
+        commentController = context.getBean(CommentController.class);
+
+        ProjectIngestService ingest = context.getBean(ProjectIngestService.class);
+        ProjectGenerator generator = new ProjectGenerator(3, 500);
+        Project last = null;
+        for (int p = 0; p < 20; p++) {
+            last = ingest.ingest(generator.project("jmh-dedup-" + p, 10, 1_000, 5), new IngestReport());
+        }
+        Issue issue = last.getIssues().get(0);
+        Comment comment = issue.getComments().get(0);
+        existingIssue = new Issue(issue.getTitle(), issue.getDescription(), issue.getState(), issue.getCreatedAt(),
+                issue.getUpdatedAt(), null, new ArrayList<>(), null, null, 0, new ArrayList<>());
+        existingComment = new Comment(comment.getBody(), null, comment.getCreatedAt(), null);
+    }
+
+    @Benchmark
+    public Issue createIssueExisting() {
+        return issueControler.createIssue(existingIssue);
+    }
+
+    @Benchmark
+    public Comment createCommentExisting() {
+        return commentController.createComment(existingComment);
+    }
+
+    @Benchmark
+    public Issue createIssueNew() {
+        return issueControler.createIssue(new Issue("jmh new issue " + counter++, "description", "opened",
+                Instant.now(), null, null, Collections.emptyList(), null, null, 0, new ArrayList<>()));
+    }
+
+    @Benchmark
+    public Comment createCommentNew() {
+        return commentController.createComment(new Comment("jmh new comment " + counter++, null, Instant.now(), null));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
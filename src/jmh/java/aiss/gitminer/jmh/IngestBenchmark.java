@@ -0,0 +1,51 @@
+package aiss.gitminer.jmh;
+
+import aiss.gitminer.controller.ProjectController;
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// ProjectController.createProject con grafos sinteticos de distinto tamaño (commits = issues = size, 3 comentarios por issue)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int size;
+
+    private ConfigurableApplicationContext context;
+    private ProjectController projectController;
+    private ProjectGenerator generator;
+    private Project project;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("jmh-ingest-" + size);
+        projectController = context.getBean(ProjectController.class);
+        generator = new ProjectGenerator(42, 1_000);
+    }
+
+    // el grafo se genera fuera de la medicion; cada invocacion usa un nombre nuevo para no caer en la deduplicacion
+    @Setup(Level.Invocation)
+    public void nextProject() {
+        project = generator.project("jmh-ingest-" + size + "-" + counter++, size, size, 3);
+    }
+
+    @Benchmark
+    public Project createProject() {
+        return projectController.createProject(project);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,78 @@
+package aiss.gitminer.jmh;
+
+import aiss.gitminer.controller.IssueControler;
+import aiss.gitminer.dto.IssueSummary;
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.repository.IssueRepository;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// IssueControler.findAll con cada combinacion de filtros sobre 10.000 issues
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IssueQueryBenchmark {
+
+    @Param({"none", "state", "author", "label", "created_at", "since_until",
+            "state_author", "state_created_at", "all"})
+    String filter;
+
+    @Param({"", "comments,labels,author"})
+    String expand;
+
+    private ConfigurableApplicationContext context;
+    private IssueControler issueControler;
+
+    private String state;
+    private Long authorId;
+    private String label;
+    private Instant createdAt;
+    private Instant since;
+    private Instant until;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("jmh-issues");
+        issueControler = context.getBean(IssueControler.class);
+
+        ProjectIngestService ingest = context.getBean(ProjectIngestService.class);
+        ProjectGenerator generator = new ProjectGenerator(7, 500);
+        for (int p = 0; p < 20; p++) {
+            ingest.ingest(generator.project("jmh-issues-" + p, 100, 500, 3), new IngestReport());
+        }
+
+        Issue sample = context.getBean(IssueRepository.class).findAll(PageRequest.of(0, 1)).getContent().get(0);
+        boolean all = filter.equals("all");
+        state = filter.contains("state") || all ? "opened" : null;
+        authorId = filter.contains("author") || all ? sample.getAuthor().getId() : null;
+        label = filter.equals("label") || all ? "bug" : null;
+        createdAt = filter.contains("created_at") ? sample.getCreatedAt() : null;
+        since = filter.equals("since_until") || all ? sample.getCreatedAt() : null;
+        until = since == null ? null : since.plus(2, ChronoUnit.DAYS);
+    }
+
+    @Benchmark
+    public List<IssueSummary> findAll() throws Exception {
+        ResponseEntity<List<IssueSummary>> response = issueControler.findAll(createdAt, state, authorId, label,
+                since, until, expand.isEmpty() ? null : expand, null, null, 0, 20);
+        return response.getBody();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
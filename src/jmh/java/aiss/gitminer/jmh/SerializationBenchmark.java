@@ -0,0 +1,66 @@
+package aiss.gitminer.jmh;
+
+import aiss.gitminer.dto.IssueSummary;
+import aiss.gitminer.dto.Expand;
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Serializacion Jackson de grafos Project/Issue con la misma configuracion que usa Spring MVC
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private ObjectMapper objectMapper;
+    private Project project;
+    private List<Issue> issues;
+    private List<IssueSummary> summaries;
+    private byte[] projectJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        project = new ProjectGenerator(42, 200).project("jmh-serialization", size, size, 3);
+        issues = project.getIssues();
+        Set<String> expand = Expand.parse("comments,labels,author");
+        summaries = issues.stream().map(issue -> IssueSummary.of(issue, expand)).collect(Collectors.toList());
+        projectJson = objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public byte[] writeProject() throws IOException {
+        return objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public byte[] writeIssues() throws IOException {
+        return objectMapper.writeValueAsBytes(issues);
+    }
+
+    @Benchmark
+    public byte[] writeIssueSummaries() throws IOException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    // coste de enlazar el cuerpo de POST /projects
+    @Benchmark
+    public Project readProject() throws IOException {
+        return objectMapper.readValue(projectJson, Project.class);
+    }
+}
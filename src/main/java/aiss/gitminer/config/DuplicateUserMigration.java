@@ -0,0 +1,114 @@
+package aiss.gitminer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Las versiones anteriores guardaban autores y asignados en cascada y podian repetir un mismo usuario
+// con la misma web_url o el mismo username (las restricciones unicas no se llegan a crear si ya hay
+// duplicados). Antes de que Hibernate actualice el esquema, las referencias se mueven al usuario con menor
+// id, primero por web_url y luego por username, y se borran las copias.
+@Component
+public class DuplicateUserMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateUserMigration.class);
+
+    private static final String[][] REFERENCES = {
+            {"issue", "author_id"},
+            {"issue", "assignee_id"},
+            {"comment", "author_id"}
+    };
+
+    // columnas unicas de gmuser, en el orden en que se fusiona
+    private static final String[] KEYS = {"web_url", "username"};
+
+    // todas las filas de gmuser salvo la de menor id para cada valor de la columna %1$s
+    private static final String DUPLICATE_IDS = "SELECT u.id FROM gmuser u WHERE u.%1$s IS NOT NULL"
+            + " AND u.id > (SELECT MIN(c.id) FROM gmuser c WHERE c.%1$s = u.%1$s)";
+
+    private static final String CANONICAL_ID =
+            "(SELECT MIN(c.id) FROM gmuser c WHERE c.%1$s = (SELECT u.%1$s FROM gmuser u WHERE u.id = %2$s))";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DuplicateUserMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<String[]> references = null;
+        for (String key : KEYS) {
+            if (!hasColumn("gmuser", key)) {
+                continue;
+            }
+            String duplicateIds = String.format(DUPLICATE_IDS, key);
+            Long duplicates = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + duplicateIds + ")", Long.class);
+            if (duplicates == null || duplicates == 0) {
+                continue;
+            }
+            if (references == null) {
+                references = references();
+            }
+            merge(key, duplicateIds, duplicates, references);
+        }
+    }
+
+    private void merge(String key, String duplicateIds, long duplicates, List<String[]> references) {
+        log.info("Merging {} duplicate users by {}", duplicates, key);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            for (String[] reference : references) {
+                String column = reference[1];
+                int updated = jdbcTemplate.update("UPDATE " + reference[0] + " SET " + column + " = "
+                        + String.format(CANONICAL_ID, key, column) + " WHERE " + column + " IN (" + duplicateIds + ")");
+                log.info("Repointed {} rows of {}.{}", updated, reference[0], column);
+            }
+            jdbcTemplate.update("DELETE FROM gmuser WHERE id IN (" + duplicateIds + ")");
+        });
+    }
+
+    private List<String[]> references() throws SQLException {
+        List<String[]> references = new ArrayList<>();
+        for (String[] reference : REFERENCES) {
+            if (hasColumn(reference[0], reference[1])) {
+                references.add(reference);
+            }
+        }
+        return references;
+    }
+
+    private boolean hasColumn(String table, String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upper = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet rs = metaData.getColumns(null, null,
+                    upper ? table.toUpperCase() : table, upper ? column.toUpperCase() : column)) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Hibernate no debe tocar el esquema hasta que las copias esten fusionadas
+    @Component
+    static class EntityManagerFactoryDependsOnMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnMigration() {
+            super(DuplicateUserMigration.class);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package aiss.gitminer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// La huella de issues y comentarios era unica en toda la tabla, y la misma issue en un fork o dos "+1" iguales
+// en issues distintas hacian fallar la ingesta. Ahora es unica por proyecto o por issue; ddl-auto=update crea
+// las restricciones nuevas pero no borra las antiguas, asi que se quitan aqui antes de que arranque Hibernate.
+@Component
+public class FingerprintConstraintMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintConstraintMigration.class);
+
+    private static final String[][] CONSTRAINTS = {
+            {"issue", "uk_issue_fingerprint"},
+            {"comment", "uk_comment_fingerprint"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FingerprintConstraintMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String[] constraint : CONSTRAINTS) {
+            Long found = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.table_constraints"
+                    + " WHERE LOWER(table_name) = ? AND LOWER(constraint_name) = ?", Long.class,
+                    constraint[0], constraint[1]);
+            if (found != null && found > 0) {
+                jdbcTemplate.execute("ALTER TABLE " + constraint[0] + " DROP CONSTRAINT " + constraint[1]);
+                log.info("Dropped table-wide unique constraint {} on {}", constraint[1], constraint[0]);
+            }
+        }
+    }
+
+    // Hibernate no debe tocar el esquema mientras sigan las restricciones antiguas
+    @Component
+    static class EntityManagerFactoryDependsOnMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnMigration() {
+            super(FingerprintConstraintMigration.class);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package aiss.gitminer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Dos pools contra la misma base de datos (spring.datasource.*): uno pequeño para las transacciones de
+// escritura (ingestas) y otro para lecturas, asi una exportacion larga o muchas consultas no dejan sin
+// conexiones a la ingesta. Se activa con gitminer.datasource.read-write-split=true (perfil prod).
+@Configuration
+@ConditionalOnProperty(name = "gitminer.datasource.read-write-split", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+
+    @Bean
+    @ConfigurationProperties("gitminer.datasource.write.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("gitminer-write");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("gitminer.datasource.read.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("gitminer-read");
+        return dataSource;
+    }
+
+    // el proxy perezoso retrasa la conexion real hasta la primera sentencia, cuando Spring ya ha marcado
+    // la transaccion como de solo lectura o de escritura
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(WRITE, writeDataSource, READ, readDataSource));
+        routing.setDefaultTargetDataSource(writeDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // escritura solo dentro de una transaccion que no es readOnly; lo demas (finders de Spring Data,
+    // carga perezosa fuera de transaccion con open-in-view) va al pool de lectura
+    static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            boolean write = TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            return write ? WRITE : READ;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package aiss.gitminer.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sustituye a spring.jpa.show-sql: registra en DEBUG una muestra de las sentencias SQL que prepara Hibernate.
+// Activar con logging.level.aiss.gitminer.sql=DEBUG; la proporcion la fija gitminer.sql-log.sample-rate.
+public class SampledSqlLogger implements StatementInspector {
+
+    private static final Logger log = LoggerFactory.getLogger("aiss.gitminer.sql");
+
+    private final double sampleRate;
+
+    public SampledSqlLogger(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.debug(sql);
+        }
+        return sql;
+    }
+}
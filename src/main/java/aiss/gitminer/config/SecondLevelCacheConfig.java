@@ -0,0 +1,71 @@
+package aiss.gitminer.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Cache de segundo nivel de Hibernate (JCache sobre Ehcache) para las entidades que casi no cambian tras
+// la ingesta, sus colecciones y las consultas de los repositorios. Cada region se dimensiona con
+// gitminer.l2-cache.regions.<region>.max-entries / .ttl, por defecto gitminer.l2-cache.default.*
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // regiones declaradas con @Cache en el modelo mas la de resultados de consultas
+    private static final List<String> REGIONS = List.of(
+            "project", "project-commits", "project-issues",
+            "commit",
+            "issue", "issue-comments", "issue-labels",
+            "comment",
+            "user",
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // URI propia: cada contexto de Spring (p.ej. los de los tests) tiene su propio CacheManager
+        CacheManager cacheManager = provider.getCacheManager(URI.create("urn:gitminer:l2:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+
+        long defaultMaxEntries = environment.getProperty("gitminer.l2-cache.default.max-entries", Long.class, 10_000L);
+        Duration defaultTtl = environment.getProperty("gitminer.l2-cache.default.ttl", Duration.class, Duration.ofHours(1));
+        for (String region : REGIONS) {
+            long maxEntries = environment.getProperty("gitminer.l2-cache.regions." + region + ".max-entries",
+                    Long.class, defaultMaxEntries);
+            Duration ttl = environment.getProperty("gitminer.l2-cache.regions." + region + ".ttl",
+                    Duration.class, defaultTtl);
+            cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(maxEntries))
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+        }
+        // una entrada por tabla; no puede caducar ni desalojarse o la cache de consultas devolveria datos viejos
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                        ResourcePoolsBuilder.heap(1_000))
+                                .withExpiry(ExpiryPolicyBuilder.noExpiration())));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,119 @@
+package aiss.gitminer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Convierte a TIMESTAMP las columnas de fecha que las versiones anteriores guardaban como texto.
+// Se ejecuta antes de que Hibernate actualice el esquema, para que los indices se creen ya sobre TIMESTAMP.
+@Component
+public class TemporalColumnMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TemporalColumnMigration.class);
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String[][] COLUMNS = {
+            {"commit", "authored_date"},
+            {"issue", "created_at"},
+            {"issue", "updated_at"},
+            {"issue", "closed_at"},
+            {"comment", "created_at"},
+            {"comment", "updated_at"}
+    };
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TemporalColumnMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        for (String[] column : COLUMNS) {
+            if (isTextColumn(column[0], column[1])) {
+                migrate(column[0], column[1]);
+            }
+        }
+    }
+
+    private boolean isTextColumn(String table, String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upper = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet rs = metaData.getColumns(null, null,
+                    upper ? table.toUpperCase() : table, upper ? column.toUpperCase() : column)) {
+                if (!rs.next()) {
+                    return false;
+                }
+                int type = rs.getInt("DATA_TYPE");
+                return type == Types.VARCHAR || type == Types.CHAR || type == Types.LONGVARCHAR
+                        || type == Types.NVARCHAR || type == Types.CLOB;
+            }
+        }
+    }
+
+    private void migrate(String table, String column) {
+        String tmp = column + "_ts";
+        log.info("Converting {}.{} from text to TIMESTAMP", table, column);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + tmp + " TIMESTAMP");
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        String update = "UPDATE " + table + " SET " + tmp + " = ? WHERE id = ?";
+        jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE " + column + " IS NOT NULL", rs -> {
+            batch.add(new Object[] {toUtc(rs.getString(2), table, column), rs.getLong(1)});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(update, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(update, batch);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + tmp + " RENAME TO " + column);
+    }
+
+    // hibernate.jdbc.time_zone=UTC: los TIMESTAMP se guardan como hora UTC
+    private LocalDateTime toUtc(String value, String table, String column) {
+        try {
+            return OffsetDateTime.parse(value).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.ofInstant(Instant.parse(value), ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                log.warn("Unparseable date '{}' in {}.{} left empty", value, table, column);
+                return null;
+            }
+        }
+    }
+
+    // Hibernate no debe tocar el esquema hasta que termine la conversion
+    @Component
+    static class EntityManagerFactoryDependsOnMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnMigration() {
+            super(TemporalColumnMigration.class);
+        }
+    }
+}
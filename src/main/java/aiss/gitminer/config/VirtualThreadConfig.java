@@ -0,0 +1,65 @@
+package aiss.gitminer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskExecutorCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Modo opcional (gitminer.threads.virtual=true) en el que Tomcat, las tareas asincronas de Spring MVC
+// y los jobs de ingesta usan hilos virtuales. Necesita una JVM 21 o posterior; en otra JVM se avisa
+// en el log y todo sigue con hilos de plataforma, sin tocar el pool de conexiones. La concurrencia contra
+// la base de datos la limita SemaphoreDataSource, no el numero de hilos.
+@Configuration
+@ConditionalOnProperty(name = "gitminer.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return protocolHandler -> VirtualThreads.perTaskExecutor("http-vt-").ifPresentOrElse(
+                protocolHandler::setExecutor,
+                () -> log.warn("gitminer.threads.virtual=true but this JVM ({}) has no virtual threads; "
+                        + "keeping the platform thread pool", Runtime.version()));
+    }
+
+    // StreamingResponseBody y demas trabajo asincrono de MVC
+    @Bean
+    public TaskExecutorCustomizer virtualThreadTaskExecutor() {
+        return executor -> VirtualThreads.threadFactory("task-vt-").ifPresent(executor::setThreadFactory);
+    }
+
+    // static: los BeanPostProcessor se crean antes que el resto de beans de la configuracion.
+    // Solo se envuelven los pools reales, no los proxies ni el enrutado lectura/escritura que hay delante,
+    // y solo si hay hilos virtuales: con hilos de plataforma el pool de Tomcat ya limita la concurrencia.
+    @Bean
+    public static BeanPostProcessor semaphoreDataSourcePostProcessor(Environment environment) {
+        boolean virtualThreads = VirtualThreads.isAvailable();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!virtualThreads || !(bean instanceof DataSource) || bean instanceof DelegatingDataSource
+                        || bean instanceof AbstractRoutingDataSource) {
+                    return bean;
+                }
+                int poolSize = bean instanceof HikariDataSource ? ((HikariDataSource) bean).getMaximumPoolSize() : 10;
+                int permits = environment.getProperty("gitminer.threads.connection-permits", Integer.class, poolSize);
+                Duration timeout = environment.getProperty("gitminer.threads.connection-permit-timeout",
+                        Duration.class, Duration.ofSeconds(60));
+                log.info("Limiting '{}' to {} concurrent connections (permit timeout {})", beanName, permits, timeout);
+                return new SemaphoreDataSource((DataSource) bean, permits, timeout);
+            }
+        };
+    }
+}
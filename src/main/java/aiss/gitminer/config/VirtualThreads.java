@@ -0,0 +1,42 @@
+package aiss.gitminer.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Acceso a los hilos virtuales de Java 21 desde un proyecto compilado para Java 17.
+// En una JVM anterior a la 21 todos los metodos devuelven Optional.empty().
+public final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    public static boolean isAvailable() {
+        return threadFactory("probe-").isPresent();
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory()
+    public static Optional<ThreadFactory> threadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor(factory): un hilo virtual nuevo por tarea, sin pool
+    public static Optional<ExecutorService> perTaskExecutor(String namePrefix) {
+        return threadFactory(namePrefix).flatMap(factory -> {
+            try {
+                Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return Optional.of((ExecutorService) method.invoke(null, factory));
+            } catch (ReflectiveOperationException e) {
+                return Optional.empty();
+            }
+        });
+    }
+}
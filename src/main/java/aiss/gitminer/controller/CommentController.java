@@ -1,11 +1,23 @@
 package aiss.gitminer.controller;
 
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.dto.CommentSummary;
+import aiss.gitminer.dto.Expand;
+import aiss.gitminer.exception.BatchGetLimitException;
 import aiss.gitminer.exception.CommentByCreatedAtNotFoundException;
 import aiss.gitminer.exception.CommentNotFoundException;
 import aiss.gitminer.exception.CommitNotFoundException;
+import aiss.gitminer.exception.InvalidCursorException;
 import aiss.gitminer.model.Comment;
-import aiss.gitminer.model.Project;
+import aiss.gitminer.model.ContentFingerprint;
 import aiss.gitminer.repository.CommentRepository;
+import aiss.gitminer.repository.keyset.KeysetPage;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.FieldSpecifications;
+import aiss.gitminer.service.BatchLoader;
+import aiss.gitminer.service.DeletionService;
+import aiss.gitminer.service.NdjsonExportService;
+import aiss.gitminer.service.UserResolver;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,20 +30,42 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Tag(name = "Comment", description = "Comment management API")
 @RestController // indicar que es controlador
 @RequestMapping("/gitminer/comments")
 public class CommentController {
 
+    @Autowired
+    BatchLoader batchLoader;
+
     @Autowired // cargar repositorio de comment con datos
     CommentRepository commentRepository;
 
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    NdjsonExportService ndjsonExportService;
+
+    @Autowired
+    DeletionService deletionService;
+
+    @Autowired
+    UserResolver userResolver;
+
     // GET http://localhost:8080/gitminer/comments
     @Operation(
             summary = "Retrieve a list of all comments",
@@ -39,15 +73,34 @@ public class CommentController {
             tags = { "comments", "get" })
     @ApiResponses({
             @ApiResponse(responseCode = "200", content =
-                    {@Content(schema = @Schema(implementation = Comment.class),
+                    {@Content(schema = @Schema(implementation = CommentSummary.class),
                             mediaType = "application/json")})
     })
     @GetMapping // especificar metodo HTTP a utilizar
-    public List<Comment> findAll (@RequestParam(required = false) String created_at,
+    public ResponseEntity<List<CommentSummary>> findAll (@RequestParam(required = false) Instant created_at,
+                                  @Parameter(description = "comments created at or after this instant")
+                                  @RequestParam(required = false) Instant since,
+                                  @Parameter(description = "comments created before this instant")
+                                  @RequestParam(required = false) Instant until,
+                                  @Parameter(description = "nested objects to include: author")
+                                  @RequestParam(required = false) String expand,
                                   @RequestParam(required = false) String order,
+                                  @Parameter(description = "keyset cursor from the X-Next-Cursor header, empty to start; skips the count query")
+                                  @RequestParam(required = false) String cursor,
                                   @RequestParam(defaultValue = "0") int page,
                                   @RequestParam(defaultValue = "5") int size)
-                throws CommentByCreatedAtNotFoundException {
+                throws CommentByCreatedAtNotFoundException, InvalidCursorException {
+        Set<String> expanded = Expand.parse(expand);
+        Specification<Comment> filter = Specification.where(FieldSpecifications.<Comment>equalTo("createdAt", created_at))
+                .and(FieldSpecifications.between("createdAt", since, until));
+
+        if (cursor != null) {
+            KeysetPage<Comment> keysetPage = keysetQuery.find(Comment.class, filter, order, cursor, size, "Comment.author");
+            return KeysetResponses.of(keysetPage.getContent().stream()
+                    .map(comment -> CommentSummary.of(comment, expanded))
+                    .collect(Collectors.toList()), keysetPage.getNextCursor());
+        }
+
         Pageable paging;
 
         if (order != null) {
@@ -62,21 +115,74 @@ public class CommentController {
             paging = PageRequest.of(page, size);
         }
 
-        Page<Comment> pageComments;
+        Page<Comment> pageComments = commentRepository.findAll(filter, paging);
 
-        if (created_at == null) {
-            pageComments = commentRepository.findAll(paging);
-        } else {
-            pageComments = commentRepository.findByCreatedAt(paging, created_at);
-            if (pageComments.isEmpty()) {
-                throw new CommentByCreatedAtNotFoundException();
-            }
+        if (created_at != null && pageComments.isEmpty()) {
+            throw new CommentByCreatedAtNotFoundException();
         }
 
-        return pageComments.getContent();
+        return ResponseEntity.ok(pageComments.getContent().stream()
+                .map(comment -> CommentSummary.of(comment, expanded))
+                .collect(Collectors.toList()));
     }
 
 
+    // GET http://localhost:8080/gitminer/comments/export
+    @Operation(
+            summary = "Export all comments",
+            description = "Stream every comment as newline-delimited JSON (one object per line), without paging",
+            tags = {"comment", "export"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/x-ndjson")})
+    })
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> ndjsonExportService.comments(out));
+    }
+
+    // GET http://localhost:8080/gitminer/comments?ids=1,2,3
+    @Operation(
+            summary = "Get several comments by id",
+            description = "Comments in the order of the ids, as in the list endpoint; ids that do not exist are "
+                    + "returned in missing instead of failing",
+            tags = {"get by id", "comment"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping(params = "ids")
+    public BatchResult<CommentSummary> findByIds(@Parameter(description = "comma-separated ids")
+                                                 @RequestParam List<Long> ids,
+                                                 @Parameter(description = "nested objects to include: author")
+                                                 @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchGet(ids, expand);
+    }
+
+    // POST http://localhost:8080/gitminer/comments/batch-get
+    @Operation(
+            summary = "Get several comments by id",
+            description = "Same as GET /gitminer/comments?ids= with the ids as a JSON array in the body, "
+                    + "for lists too long for a URL",
+            tags = {"get by id", "comment"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @PostMapping("/batch-get")
+    public BatchResult<CommentSummary> batchGet(@RequestBody List<Long> ids,
+                                                @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchLoader.load(ids, commentRepository::findAllById, Comment::getId,
+                comment -> CommentSummary.of(comment, Expand.parse(expand)));
+    }
+
     // GET http:localhost:8080/gitminer/comments/:id
     @Operation(
             summary = "Get a comment by id",
@@ -111,12 +217,15 @@ public class CommentController {
     })
     @PostMapping
     public Comment createComment(@RequestBody Comment comment) {
-        Optional<Comment> existing = commentRepository.findByBodyAndCreatedAt(
-                comment.getBody(),
-                comment.getCreatedAt()
-        );
-
-        return existing.orElseGet(() -> commentRepository.save(comment));
+        // busqueda puntual por la huella indexada en lugar de comparar el cuerpo TEXT; un comentario suelto
+        // no tiene issue y la restriccion unica (issue, huella) no lo cubre
+        String fingerprint = ContentFingerprint.of(comment.getBody(), comment.getCreatedAt());
+        Optional<Comment> existing = commentRepository.findFirstByFingerprintOrderByIdAsc(fingerprint);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        userResolver.resolve(comment);
+        return commentRepository.save(comment);
     }
     // Delete http://localhost:8080/gitminer/comments/:id
     @Operation(
@@ -133,11 +242,7 @@ public class CommentController {
     @DeleteMapping("/{id}")
     public void delete(@Parameter (
             description = "id of the comment to be delete") @PathVariable Long id) throws CommentNotFoundException {
-        if (!commentRepository.existsById(id)) {
-            throw new CommentNotFoundException();
-        }
-
-        commentRepository.deleteById(id);
+        deletionService.deleteComment(id);
     }
 
 }
@@ -1,13 +1,24 @@
 package aiss.gitminer.controller;
 
-
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.dto.Histogram;
+import aiss.gitminer.exception.BatchGetLimitException;
 import aiss.gitminer.exception.CommitByAuthorNameNotFoundException;
 import aiss.gitminer.exception.CommitByFechaAndAuthorNameNotFoundException;
 import aiss.gitminer.exception.CommitByFechaNotFoundException;
 import aiss.gitminer.exception.CommitNotFoundException;
+import aiss.gitminer.exception.InvalidCursorException;
+import aiss.gitminer.exception.InvalidHistogramBucketException;
 import aiss.gitminer.model.Comment;
 import aiss.gitminer.model.Commit;
 import aiss.gitminer.repository.CommitRepository;
+import aiss.gitminer.repository.keyset.KeysetPage;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.FieldSpecifications;
+import aiss.gitminer.service.BatchLoader;
+import aiss.gitminer.service.DeletionService;
+import aiss.gitminer.service.HistogramService;
+import aiss.gitminer.service.NdjsonExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,14 +28,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.hibernate.sql.Delete;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,9 +51,27 @@ import java.util.Optional;
 @RequestMapping("/gitminer/commits")
 public class CommitController {
 
+    @Autowired
+    BatchLoader batchLoader;
+
     @Autowired // cargar repositorio de commit con datos
     CommitRepository commitRepository;
 
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    NdjsonExportService ndjsonExportService;
+
+    @Autowired
+    DeletionService deletionService;
+
+    @Autowired
+    HistogramService histogramService;
+
+    @Value("${gitminer.http.cache-control.commits:max-age=300, must-revalidate}")
+    String cacheControl;
+
     // GET http://locahost:8080/gitminer/commits
     @Operation(
             summary = "Get a list of all commits",
@@ -47,13 +83,28 @@ public class CommitController {
                             mediaType = "application/json")})
     })
     @GetMapping // especificar metodo HTTP a utilizar
-    public List<Commit> findAll (@RequestParam(required = false) String authored_date,
+    public ResponseEntity<List<Commit>> findAll (@RequestParam(required = false) Instant authored_date,
                                  @RequestParam(required = false) String author_name,
+                                 @Parameter(description = "commits authored at or after this instant")
+                                 @RequestParam(required = false) Instant since,
+                                 @Parameter(description = "commits authored before this instant")
+                                 @RequestParam(required = false) Instant until,
                                  @RequestParam(required = false) String order,
+                                 @Parameter(description = "keyset cursor from the X-Next-Cursor header, empty to start; skips the count query")
+                                 @RequestParam(required = false) String cursor,
                                  @RequestParam(defaultValue = "0") int page,
                                  @RequestParam(defaultValue = "5") int size)
     throws CommitByFechaNotFoundException, CommitByFechaAndAuthorNameNotFoundException,
-            CommitByAuthorNameNotFoundException {
+            CommitByAuthorNameNotFoundException, InvalidCursorException {
+        Specification<Commit> filter = Specification.where(FieldSpecifications.<Commit>equalTo("authorName", author_name))
+                .and(FieldSpecifications.equalTo("authoredDate", authored_date))
+                .and(FieldSpecifications.between("authoredDate", since, until));
+
+        if (cursor != null) {
+            KeysetPage<Commit> keysetPage = keysetQuery.find(Commit.class, filter, order, cursor, size, null);
+            return KeysetResponses.of(keysetPage.getContent(), keysetPage.getNextCursor());
+        }
+
         Pageable paging;
 
         if (order != null) {
@@ -68,33 +119,97 @@ public class CommitController {
             paging = PageRequest.of(page, size);
         }
 
-        Page<Commit> pageCommits;
+        Page<Commit> pageCommits = commitRepository.findAll(filter, paging);
 
-        if (author_name == null && authored_date == null) {
-            pageCommits = commitRepository.findAll(paging);
-        }
-        else {
-            if (authored_date != null) {
-                if (author_name != null) {
-                    pageCommits = commitRepository.findByAuthorNameAndAuthoredDate(author_name, authored_date, paging);
-                    if (pageCommits.isEmpty()) {
-                        throw new CommitByFechaAndAuthorNameNotFoundException();
-                    }
-                } else {
-                    pageCommits = commitRepository.findByAuthoredDate(authored_date, paging);
-                    if (pageCommits.isEmpty()) {
-                        throw new CommitByFechaNotFoundException();
-                    }
-                }
+        if (pageCommits.isEmpty()) {
+            if (authored_date != null && author_name != null) {
+                throw new CommitByFechaAndAuthorNameNotFoundException();
             }
-            else {
-                pageCommits = commitRepository.findByAuthorName(author_name, paging);
-                if (pageCommits.isEmpty()) {
-                    throw new CommitByAuthorNameNotFoundException();
-                }
+            else if (authored_date != null) {
+                throw new CommitByFechaNotFoundException();
+            }
+            else if (author_name != null) {
+                throw new CommitByAuthorNameNotFoundException();
             }
         }
-        return pageCommits.getContent();
+        return ResponseEntity.ok(pageCommits.getContent());
+    }
+
+    // GET http://localhost:8080/gitminer/commits/histogram?bucket=day
+    @Operation(
+            summary = "Commit histogram",
+            description = "Commits per hour, day, week (ISO, from Monday) or month in UTC, counted in the database; "
+                    + "returns the start of each non-empty bucket and the counts as parallel arrays",
+            tags = {"commit", "get", "histogram"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = Histogram.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping("/histogram")
+    public Histogram histogram(@Parameter(description = "hour, day, week or month")
+                               @RequestParam(defaultValue = "day") String bucket,
+                               @RequestParam(required = false) Long project,
+                               @RequestParam(required = false) String author_name,
+                               @Parameter(description = "commits authored at or after this instant")
+                               @RequestParam(required = false) Instant since,
+                               @Parameter(description = "commits authored before this instant")
+                               @RequestParam(required = false) Instant until) throws InvalidHistogramBucketException {
+        return histogramService.commits(HistogramService.Bucket.parse(bucket), project, author_name, since, until);
+    }
+
+    // GET http://localhost:8080/gitminer/commits/export
+    @Operation(
+            summary = "Export all commits",
+            description = "Stream every commit as newline-delimited JSON (one object per line), without paging",
+            tags = {"commit", "export"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/x-ndjson")})
+    })
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> ndjsonExportService.commits(out));
+    }
+
+    // GET http://localhost:8080/gitminer/commits?ids=1,2,3
+    @Operation(
+            summary = "Get several commits by id",
+            description = "Commits in the order of the ids, as in the list endpoint; ids that do not exist are "
+                    + "returned in missing instead of failing",
+            tags = {"get by id", "commit"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping(params = "ids")
+    public BatchResult<Commit> findByIds(@Parameter(description = "comma-separated ids")
+                                         @RequestParam List<Long> ids) throws BatchGetLimitException {
+        return batchGet(ids);
+    }
+
+    // POST http://localhost:8080/gitminer/commits/batch-get
+    @Operation(
+            summary = "Get several commits by id",
+            description = "Same as GET /gitminer/commits?ids= with the ids as a JSON array in the body, "
+                    + "for lists too long for a URL",
+            tags = {"get by id", "commit"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @PostMapping("/batch-get")
+    public BatchResult<Commit> batchGet(@RequestBody List<Long> ids) throws BatchGetLimitException {
+        return batchLoader.load(ids, commitRepository::findAllById, Commit::getId,
+                commit -> commit);
     }
 
     // GET http://localhost:8080/gitminer/commits/:id
@@ -109,14 +224,14 @@ public class CommitController {
                 mediaType = "application/json")})
     })
     @GetMapping("/{id}")
-    public Commit findById(@Parameter(description = "id of a commit to be searched")
-                               @PathVariable Long id) throws CommitNotFoundException {
+    public ResponseEntity<Commit> findById(@Parameter(description = "id of a commit to be searched")
+                               @PathVariable Long id, WebRequest request) throws CommitNotFoundException {
         Optional<Commit> foundCommit = commitRepository.findById(id);
 
         if (!foundCommit.isPresent()) {
             throw new CommitNotFoundException();
         }
-        return foundCommit.get();
+        return ConditionalResponses.of(request, id, foundCommit.get(), cacheControl, foundCommit::get);
     }
 
 
@@ -155,10 +270,6 @@ public class CommitController {
     @DeleteMapping("/{id}")
     public void delete(@Parameter (
             description = "id of the commit to be delete") @PathVariable Long id) throws CommitNotFoundException {
-        if (!commitRepository.existsById(id)) {
-            throw new CommitNotFoundException();
-        }
-
-        commitRepository.deleteById(id);
+        deletionService.deleteCommit(id);
     }
 }
\ No newline at end of file
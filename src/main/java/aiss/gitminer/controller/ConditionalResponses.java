@@ -0,0 +1,33 @@
+package aiss.gitminer.controller;
+
+import aiss.gitminer.model.Versioned;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+// GET condicional: ETag fuerte con el id y la version de la entidad, Last-Modified con su ultima escritura.
+// Si el cliente ya tiene esa version se responde 304 antes de cargar el cuerpo (colecciones incluidas).
+class ConditionalResponses {
+
+    private ConditionalResponses() {}
+
+    static <T, E extends Exception> ResponseEntity<T> of(WebRequest request, Long id, Versioned stamp,
+                                                         String cacheControl, Body<T, E> body) throws E {
+        String etag = "\"" + id + "." + stamp.getVersion() + "\"";
+        long lastModified = stamp.getLastModified() != null ? stamp.getLastModified().toEpochMilli() : -1;
+        // fija ETag y Last-Modified en la respuesta y compara con If-None-Match / If-Modified-Since
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(body.load());
+    }
+
+    interface Body<T, E extends Exception> {
+        T load() throws E;
+    }
+}
@@ -1,13 +1,29 @@
 package aiss.gitminer.controller;
 
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.dto.Expand;
+import aiss.gitminer.dto.Histogram;
+import aiss.gitminer.dto.IssueSummary;
+import aiss.gitminer.exception.BatchGetLimitException;
 import aiss.gitminer.exception.CommentNotFoundException;
+import aiss.gitminer.exception.InvalidCursorException;
+import aiss.gitminer.exception.InvalidHistogramBucketException;
 import aiss.gitminer.exception.IssueNotFoundException;
 import aiss.gitminer.exception.UserNotFoundException;
 import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.ContentFingerprint;
 import aiss.gitminer.model.Issue;
 import aiss.gitminer.model.User;
 import aiss.gitminer.repository.IssueRepository;
 import aiss.gitminer.repository.UserRepository;
+import aiss.gitminer.repository.keyset.KeysetPage;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.IssueSpecifications;
+import aiss.gitminer.service.BatchLoader;
+import aiss.gitminer.service.DeletionService;
+import aiss.gitminer.service.HistogramService;
+import aiss.gitminer.service.NdjsonExportService;
+import aiss.gitminer.service.UserResolver;
 import com.sun.tools.jconsole.JConsoleContext;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,17 +33,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Tag(name = "Issue", description = "Issue management API")
@@ -35,12 +59,33 @@ import java.util.stream.Collectors;
 @RequestMapping("/gitminer/issues")
 public class IssueControler {
 
+    @Autowired
+    BatchLoader batchLoader;
+
     @Autowired // cargar repositorio de issue con datos
     IssueRepository issueRepository;
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    NdjsonExportService ndjsonExportService;
+
+    @Autowired
+    DeletionService deletionService;
+
+    @Autowired
+    UserResolver userResolver;
+
+    @Autowired
+    HistogramService histogramService;
+
+    @Value("${gitminer.http.cache-control.issue-comments:no-cache}")
+    String commentsCacheControl;
+
     // GET http://localhost:8080/gitminer/issues
     @Operation(
             summary = "Retrieve a list of all issues",
@@ -48,17 +93,40 @@ public class IssueControler {
             tags = { "projects", "get" })
     @ApiResponses({
             @ApiResponse(responseCode = "200", content =
-                    {@Content(schema = @Schema(implementation = Issue.class),
+                    {@Content(schema = @Schema(implementation = IssueSummary.class),
                             mediaType = "application/json")})
     })
     @GetMapping // especificar metodo HTTP a utilizar
-    public List<Issue> findAll (@RequestParam(required = false) String created_at,
+    public ResponseEntity<List<IssueSummary>> findAll (@RequestParam(required = false) Instant created_at,
                                 @RequestParam(required = false) String state,
                                 @RequestParam(required = false) Long authorId,
+                                @RequestParam(required = false) String label,
+                                @Parameter(description = "issues created at or after this instant")
+                                @RequestParam(required = false) Instant since,
+                                @Parameter(description = "issues created before this instant")
+                                @RequestParam(required = false) Instant until,
+                                @Parameter(description = "nested collections to include: comments, labels, author")
+                                @RequestParam(required = false) String expand,
                                 @RequestParam(required = false) String order,
+                                @Parameter(description = "keyset cursor from the X-Next-Cursor header, empty to start; skips the count query")
+                                @RequestParam(required = false) String cursor,
                                 @RequestParam(defaultValue = "0") int page,
                                 @RequestParam(defaultValue = "5") int size)
-            throws UserNotFoundException{
+            throws UserNotFoundException, InvalidCursorException {
+        if (authorId != null && !userRepository.existsById(authorId)) {
+            throw new UserNotFoundException();
+        }
+
+        Specification<Issue> filter = IssueSpecifications.matching(state, authorId, created_at, label, since, until);
+        Set<String> expanded = Expand.parse(expand);
+
+        if (cursor != null) {
+            KeysetPage<Issue> keysetPage = keysetQuery.find(Issue.class, filter, order, cursor, size, "Issue.users");
+            return KeysetResponses.of(keysetPage.getContent().stream()
+                    .map(issue -> IssueSummary.of(issue, expanded))
+                    .collect(Collectors.toList()), keysetPage.getNextCursor());
+        }
+
         Pageable paging;
 
         if (order != null) {
@@ -73,55 +141,94 @@ public class IssueControler {
             paging = PageRequest.of(page, size);
         }
 
-        Page<Issue> pageIssues;
+        Page<Issue> pageIssues = issueRepository.findAll(filter, paging);
+        return ResponseEntity.ok(pageIssues.getContent().stream()
+                .map(issue -> IssueSummary.of(issue, expanded))
+                .collect(Collectors.toList()));
+    }
 
-        if (state == null && authorId == null && created_at == null) {
-            pageIssues = issueRepository.findAll(paging);
-            return pageIssues.getContent();
-        }
-        else {
-            if (state != null) {
-                if (authorId != null && created_at == null) {
-                    pageIssues = issueRepository.findByStateAndAuthorId(state, authorId, paging);
-                    return pageIssues.getContent();
-                }
-                else if (authorId == null && created_at != null)  {
-                    pageIssues = issueRepository.findByStateAndCreatedAt(state, created_at, paging);
-                    return pageIssues.getContent();
-                }
-                else {
-                    pageIssues = issueRepository.findByState(state, paging);
-                    return pageIssues.getContent();
-                }
-            } else if (authorId != null) {
-                Optional<User> userFound = userRepository.findById(authorId);
-                if (!userFound.isPresent()) {
-                    throw new UserNotFoundException();
-                }
-
-                if (created_at == null) {
-                    List<Issue> issuesByAuthorId = issueRepository.findAll();
-                    issuesByAuthorId = issuesByAuthorId.stream()
-                            .filter(issue -> issue.getAuthor().getId().equals(authorId))
-                            .collect(Collectors.toList());
-
-                    return issuesByAuthorId;
-                }
-                else {
-                    List<Issue> issuesByAuthorIdAndCreatedAt = issueRepository.findAll();
-                    issuesByAuthorIdAndCreatedAt = issuesByAuthorIdAndCreatedAt.stream()
-                            .filter(issue -> issue.getAuthor().getId().equals(authorId)
-                                && issue.getCreatedAt().equals(created_at))
-                            .collect(Collectors.toList());
-                    return issuesByAuthorIdAndCreatedAt;
-                }
-            } else {
-                pageIssues = issueRepository.findByCreatedAt(created_at, paging);
-                return pageIssues.getContent();
-            }
-        }
+
+    // GET http://localhost:8080/gitminer/issues/histogram?bucket=week
+    @Operation(
+            summary = "Issue histogram",
+            description = "Issues opened (by created_at) and closed (by closed_at) per hour, day, week (ISO, from Monday) "
+                    + "or month in UTC, counted in the database; returns the start of each non-empty bucket and the "
+                    + "opened and closed counts as parallel arrays",
+            tags = {"issue", "get", "histogram"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = Histogram.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping("/histogram")
+    public Histogram histogram(@Parameter(description = "hour, day, week or month")
+                               @RequestParam(defaultValue = "week") String bucket,
+                               @RequestParam(required = false) Long project,
+                               @RequestParam(required = false) String state,
+                               @Parameter(description = "issues opened or closed at or after this instant")
+                               @RequestParam(required = false) Instant since,
+                               @Parameter(description = "issues opened or closed before this instant")
+                               @RequestParam(required = false) Instant until) throws InvalidHistogramBucketException {
+        return histogramService.issues(HistogramService.Bucket.parse(bucket), project, state, since, until);
+    }
+
+
+    // GET http://localhost:8080/gitminer/issues/export
+    @Operation(
+            summary = "Export all issues",
+            description = "Stream every issue as newline-delimited JSON (one object per line), without paging",
+            tags = {"issue", "export"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/x-ndjson")})
+    })
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> ndjsonExportService.issues(out));
+    }
+
+    // GET http://localhost:8080/gitminer/issues?ids=1,2,3
+    @Operation(
+            summary = "Get several issues by id",
+            description = "Issues in the order of the ids, as in the list endpoint; ids that do not exist are "
+                    + "returned in missing instead of failing",
+            tags = {"get by id", "issue"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping(params = "ids")
+    public BatchResult<IssueSummary> findByIds(@Parameter(description = "comma-separated ids")
+                                               @RequestParam List<Long> ids,
+                                               @Parameter(description = "nested collections to include: comments, labels, author")
+                                               @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchGet(ids, expand);
     }
 
+    // POST http://localhost:8080/gitminer/issues/batch-get
+    @Operation(
+            summary = "Get several issues by id",
+            description = "Same as GET /gitminer/issues?ids= with the ids as a JSON array in the body, "
+                    + "for lists too long for a URL",
+            tags = {"get by id", "issue"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @PostMapping("/batch-get")
+    public BatchResult<IssueSummary> batchGet(@RequestBody List<Long> ids,
+                                              @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchLoader.load(ids, issueRepository::findAllById, Issue::getId,
+                issue -> IssueSummary.of(issue, Expand.parse(expand)));
+    }
 
     // GET http://localhost:8080/gitminer/issues/:issueId
     @Operation(
@@ -137,7 +244,8 @@ public class IssueControler {
     @GetMapping("/{id}")
     public Issue findById(@Parameter(description = "id of an issue to be searched")
                             @PathVariable Long id) throws IssueNotFoundException {
-        Optional<Issue> foundIssue = issueRepository.findById(id);
+        // comentarios y sus autores en la misma consulta; autor y asignado llegan en un solo lote
+        Optional<Issue> foundIssue = issueRepository.findWithCommentsById(id);
 
         if (!foundIssue.isPresent()) {
             throw new IssueNotFoundException();
@@ -158,17 +266,17 @@ public class IssueControler {
                             mediaType = "application/json")})
     })
     @GetMapping("/{id}/comments") // especificar metodo HTTP a utilizar
-    public List<Comment> findIssueComments (
+    public ResponseEntity<List<Comment>> findIssueComments (
                                 @Parameter(description = "id of the issue to be searched")
-                                              @PathVariable Long id) throws IssueNotFoundException {
-        Optional<Issue> issueFound = issueRepository.findById(id);
+                                              @PathVariable Long id, WebRequest request) throws IssueNotFoundException {
+        // la version de la issue cambia con sus comentarios: basta la fila de la issue para el ETag
+        Optional<Issue> stamp = issueRepository.findById(id);
 
-        if (!issueFound.isPresent()) {
+        if (!stamp.isPresent()) {
             throw new IssueNotFoundException();
         }
-        List<Comment> issueComments = issueFound.get().getComments();
-
-        return issueComments;
+        return ConditionalResponses.of(request, id, stamp.get(), commentsCacheControl,
+                () -> issueRepository.findWithCommentsById(id).orElseThrow(IssueNotFoundException::new).getComments());
     }
 
     // tenemods que añadir lo siguiente porque sino no funciona los test locales de popular la base de datos
@@ -184,12 +292,15 @@ public class IssueControler {
     })
     @PostMapping
     public Issue createIssue(@RequestBody Issue issue) {
-        Optional<Issue> existing = issueRepository.findByTitleAndCreatedAt(
-                issue.getTitle(),
-                issue.getCreatedAt()
-        );
-
-        return existing.orElseGet(() -> issueRepository.save(issue));
+        // una issue suelta no tiene proyecto y la restriccion unica (proyecto, huella) no la cubre:
+        // se devuelve la primera guardada con el mismo contenido
+        String fingerprint = ContentFingerprint.of(issue.getTitle(), issue.getCreatedAt());
+        Optional<Issue> existing = issueRepository.findFirstByFingerprintOrderByIdAsc(fingerprint);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        userResolver.resolve(List.of(issue));
+        return issueRepository.save(issue);
     }
 
     // Delete http://localhost:8080/gitminer/issues/:id
@@ -207,11 +318,7 @@ public class IssueControler {
     @DeleteMapping("/{id}")
     public void delete(@Parameter (
             description = "id of the issue to be delete") @PathVariable Long id) throws IssueNotFoundException {
-        if (!issueRepository.existsById(id)) {
-            throw new IssueNotFoundException();
-        }
-
-        issueRepository.deleteById(id);
+        deletionService.deleteIssue(id);
     }
 
 }
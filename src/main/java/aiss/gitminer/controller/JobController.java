@@ -0,0 +1,41 @@
+package aiss.gitminer.controller;
+
+import aiss.gitminer.exception.JobNotFoundException;
+import aiss.gitminer.service.IngestJob;
+import aiss.gitminer.service.IngestJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Job", description = "Asynchronous ingest jobs")
+@RestController
+@RequestMapping("/gitminer/jobs")
+public class JobController {
+
+    @Autowired
+    IngestJobService ingestJobService;
+
+    // GET http://localhost:8080/gitminer/jobs/:id
+    @Operation(
+            summary = "Get an ingest job by id",
+            description = "Status, per-stage row counts and timings, and the error if the job failed",
+            tags = {"get by id", "job"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = IngestJob.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "404", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping("/{id}")
+    public IngestJob findById(@Parameter(description = "id returned by POST /gitminer/projects?async=true")
+                              @PathVariable String id) throws JobNotFoundException {
+        return ingestJobService.find(id).orElseThrow(JobNotFoundException::new);
+    }
+}
@@ -0,0 +1,30 @@
+package aiss.gitminer.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+// Respuesta de una pagina keyset: el cuerpo sigue siendo la lista y la siguiente pagina va en la cabecera Link
+class KeysetResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private KeysetResponses() {}
+
+    static <T> ResponseEntity<List<T>> of(List<T> content, String nextCursor) {
+        if (nextCursor == null) {
+            return ResponseEntity.ok(content);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", nextCursor)
+                .replaceQueryParam("page")
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .header(NEXT_CURSOR_HEADER, nextCursor)
+                .body(content);
+    }
+}
@@ -1,11 +1,33 @@
 package aiss.gitminer.controller;
 
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.dto.Expand;
+import aiss.gitminer.dto.ProjectSummary;
+import aiss.gitminer.dto.StatsSummary;
+import aiss.gitminer.exception.BatchGetLimitException;
+import aiss.gitminer.exception.IngestQueueFullException;
+import aiss.gitminer.exception.InvalidCursorException;
+import aiss.gitminer.exception.InvalidProjectPayloadException;
+import aiss.gitminer.exception.InvalidStatsParameterException;
 import aiss.gitminer.exception.ProjectNotFoundException;
 import aiss.gitminer.model.*;
 import aiss.gitminer.repository.CommitRepository;
 import aiss.gitminer.repository.IssueRepository;
 import aiss.gitminer.repository.ProjectRepository;
 import aiss.gitminer.repository.UserRepository;
+import aiss.gitminer.repository.keyset.KeysetPage;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.FieldSpecifications;
+import aiss.gitminer.service.BatchLoader;
+import aiss.gitminer.service.DeletionService;
+import aiss.gitminer.service.IngestJob;
+import aiss.gitminer.service.IngestJobService;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.ProjectNameLocks;
+import aiss.gitminer.service.ProjectStatsService;
+import aiss.gitminer.service.ProjectSyncService;
+import aiss.gitminer.service.StreamingProjectIngestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,21 +36,34 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Tag(name = "Project", description = "Project management API")
 @RestController // indicar que es controlador
 @RequestMapping("/gitminer/projects")
 public class ProjectController {
 
+    @Autowired
+    BatchLoader batchLoader;
+
     @Autowired // cargar repositorio de projects con datos
     ProjectRepository projectRepository;
 
@@ -41,6 +76,35 @@ public class ProjectController {
     @Autowired
     IssueRepository issueRepository;
 
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    StreamingProjectIngestService streamingProjectIngestService;
+
+    @Autowired
+    IngestJobService ingestJobService;
+
+    @Autowired
+    ProjectNameLocks projectNameLocks;
+
+    @Autowired
+    ProjectSyncService projectSyncService;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @Autowired
+    DeletionService deletionService;
+
+    @Value("${gitminer.http.cache-control.projects:no-cache}")
+    String cacheControl;
+
+    private static final int MAX_TOP_AUTHORS = 100;
+
     // GET http://localhost:8080/giminer/projects
     @Operation(
             summary = "Get a list of all projects",
@@ -48,14 +112,28 @@ public class ProjectController {
             tags = { "projects", "get" })
     @ApiResponses({
                 @ApiResponse(responseCode = "200", content =
-                        {@Content(schema = @Schema(implementation = Project.class),
+                        {@Content(schema = @Schema(implementation = ProjectSummary.class),
                                 mediaType = "application/json")})
     })
     @GetMapping // especificar metodo HTTP a utilizar
-    public List<Project> findAll (@RequestParam(required = false) String name,
+    public ResponseEntity<List<ProjectSummary>> findAll (@RequestParam(required = false) String name,
+                                  @Parameter(description = "nested collections to include: commits, issues, comments, labels, author")
+                                  @RequestParam(required = false) String expand,
                                   @RequestParam(required = false) String order,
+                                  @Parameter(description = "keyset cursor from the X-Next-Cursor header, empty to start; skips the count query")
+                                  @RequestParam(required = false) String cursor,
                                   @RequestParam(defaultValue = "0") int page,
-                                  @RequestParam(defaultValue = "5") int size) {
+                                  @RequestParam(defaultValue = "5") int size) throws InvalidCursorException {
+        Set<String> expanded = Expand.parse(expand);
+
+        if (cursor != null) {
+            KeysetPage<Project> keysetPage = keysetQuery.find(Project.class,
+                    FieldSpecifications.equalTo("name", name), order, cursor, size, null);
+            return KeysetResponses.of(keysetPage.getContent().stream()
+                    .map(project -> ProjectSummary.of(project, expanded))
+                    .collect(Collectors.toList()), keysetPage.getNextCursor());
+        }
+
         Pageable paging;
 
         if (order != null) {
@@ -78,10 +156,53 @@ public class ProjectController {
         else {
             pageProjects = projectRepository.findByName(name, paging);
         }
-        return pageProjects.getContent();
+        return ResponseEntity.ok(pageProjects.getContent().stream()
+                .map(project -> ProjectSummary.of(project, expanded))
+                .collect(Collectors.toList()));
     }
 
 
+    // GET http://localhost:8080/gitminer/projects?ids=1,2,3
+    @Operation(
+            summary = "Get several projects by id",
+            description = "Projects in the order of the ids, as in the list endpoint; ids that do not exist are "
+                    + "returned in missing instead of failing",
+            tags = {"get by id", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping(params = "ids")
+    public BatchResult<ProjectSummary> findByIds(@Parameter(description = "comma-separated ids")
+                                                 @RequestParam List<Long> ids,
+                                                 @Parameter(description = "nested collections to include: commits, issues, comments, labels, author")
+                                                 @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchGet(ids, expand);
+    }
+
+    // POST http://localhost:8080/gitminer/projects/batch-get
+    @Operation(
+            summary = "Get several projects by id",
+            description = "Same as GET /gitminer/projects?ids= with the ids as a JSON array in the body, "
+                    + "for lists too long for a URL",
+            tags = {"get by id", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @PostMapping("/batch-get")
+    public BatchResult<ProjectSummary> batchGet(@RequestBody List<Long> ids,
+                                                @RequestParam(required = false) String expand) throws BatchGetLimitException {
+        return batchLoader.load(ids, projectRepository::findAllById, Project::getId,
+                project -> ProjectSummary.of(project, Expand.parse(expand)));
+    }
+
     // GET http://localhost:8080/giminer/projects/:projectId
     @Operation(
             summary = "Get a project by id",
@@ -94,14 +215,43 @@ public class ProjectController {
                             mediaType = "application/json")})
     })
     @GetMapping("/{id}")
-    public Project findById(@Parameter(description = "id of a project to be searched")
-                           @PathVariable Long id) throws ProjectNotFoundException {
-        Optional<Project> foundProject = projectRepository.findById(id);
+    public ResponseEntity<Project> findById(@Parameter(description = "id of a project to be searched")
+                           @PathVariable Long id, WebRequest request) throws ProjectNotFoundException {
+        // solo la fila del proyecto (sin colecciones) para decidir si hace falta el cuerpo
+        Optional<Project> stamp = projectRepository.findById(id);
 
-        if (!foundProject.isPresent()) {
+        if (!stamp.isPresent()) {
             throw new ProjectNotFoundException();
         }
-        return foundProject.get();
+        return ConditionalResponses.of(request, id, stamp.get(), cacheControl,
+                () -> projectRepository.findWithIssuesById(id).orElseThrow(ProjectNotFoundException::new));
+    }
+
+
+    // GET http://localhost:8080/gitminer/projects/:projectId/stats
+    @Operation(
+            summary = "Get the statistics of a project",
+            description = "Commit, issue and comment counts, closed ratio, comments per issue and top commit authors, "
+                    + "read from rollup tables kept up to date on every ingest and delete",
+            tags = {"get by id", "project", "stats"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = StatsSummary.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())}),
+            @ApiResponse(responseCode = "404", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping("/{id}/stats")
+    public StatsSummary findStats(@Parameter(description = "id of the project")
+                                  @PathVariable Long id,
+                                  @Parameter(description = "number of commit authors to include, 0 to 100")
+                                  @RequestParam(defaultValue = "10") int top)
+            throws ProjectNotFoundException, InvalidStatsParameterException {
+        if (top < 0 || top > MAX_TOP_AUTHORS) {
+            throw new InvalidStatsParameterException();
+        }
+        return projectStatsService.project(id, top).orElseThrow(ProjectNotFoundException::new);
     }
 
 
@@ -118,49 +268,89 @@ public class ProjectController {
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
     public Project createProject(@RequestBody Project project) {
-        try {
-            if (projectRepository.findByName(project.getName()) == null) {
-
-                if (project.getIssues() != null) {
-
-                    for (Issue i : project.getIssues()) {
-
-                        if (i.getAuthor() != null) {
-                            Optional<User> existingAuthor = userRepository.findByWebUrl(i.getAuthor().getWebUrl());
-                            if (existingAuthor.isEmpty()) {
-                                userRepository.save(i.getAuthor());
-                            }
-                        }
-
-                        if (i.getAssignee() != null) {
-                            Optional<User> existingAssignee = userRepository.findByWebUrl(i.getAssignee().getWebUrl());
-                            if (existingAssignee.isEmpty()) {
-                                userRepository.save(i.getAssignee());
-                            }
-                        }
-
-                        if (i.getComments() != null) {
-                            for (Comment c : i.getComments()) {
-                                if (c.getAuthor() != null) {
-                                    Optional<User> existingCommentAuthor = userRepository.findByWebUrl(c.getAuthor().getWebUrl());
-                                    if (existingCommentAuthor.isEmpty()) {
-                                        userRepository.save(c.getAuthor());
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-
-                return projectRepository.save(project);
-            }
+        return projectNameLocks.withLock(project.getName(),
+                () -> projectIngestService.ingest(project, new IngestReport()));
+    }
 
-            return projectRepository.findByName(project.getName());
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw e;
-        }
+    // POST http://localhost:8080/gitminer/projects?sync=true
+    @Operation(
+            summary = "Re-mine an existing project incrementally",
+            description = "Same body as POST /projects; if the project exists only the commits, issues and comments that changed "
+                    + "(matched by web_url, title + created_at and comment content) are inserted, updated or deleted. "
+                    + "Returns the number of rows of each kind",
+            tags = {"post", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(schema = @Schema(implementation = IngestReport.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema=@Schema())})
+    })
+    @PostMapping(params = "sync=true")
+    public ResponseEntity<IngestReport> syncProject(@RequestBody Project project) {
+        IngestReport report = new IngestReport();
+        Project synced = projectNameLocks.withLock(project.getName(),
+                () -> projectSyncService.sync(project, report));
+        return ResponseEntity.ok()
+                .location(URI.create("/gitminer/projects/" + synced.getId()))
+                .body(report);
+    }
+
+
+    // POST http://localhost:8080/gitminer/projects?async=true&sync=true
+    @Operation(
+            summary = "Queue an incremental re-mine of a project",
+            description = "Same as POST /projects?sync=true, run as a job to poll at /gitminer/jobs/{id}",
+            tags = {"post", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", content = {@Content(schema = @Schema(implementation = IngestJob.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema=@Schema())}),
+            @ApiResponse(responseCode = "429", content = {@Content(schema=@Schema())})
+    })
+    @PostMapping(params = {"async=true", "sync=true"})
+    public ResponseEntity<IngestJob> syncProjectAsync(@RequestBody Project project) throws IngestQueueFullException {
+        IngestJob job = ingestJobService.submit(project, true);
+        return ResponseEntity.accepted()
+                .location(URI.create("/gitminer/jobs/" + job.getId()))
+                .body(job);
+    }
+
+
+    // POST http://localhost:8080/gitminer/projects?async=true
+    @Operation(
+            summary = "Queue a new project for ingestion",
+            description = "Same body as POST /projects; returns a job to poll at /gitminer/jobs/{id}",
+            tags = {"post", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", content = {@Content(schema = @Schema(implementation = IngestJob.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema=@Schema())}),
+            @ApiResponse(responseCode = "429", content = {@Content(schema=@Schema())})
+    })
+    @PostMapping(params = "async=true")
+    public ResponseEntity<IngestJob> createProjectAsync(@RequestBody Project project) throws IngestQueueFullException {
+        IngestJob job = ingestJobService.submit(project);
+        return ResponseEntity.accepted()
+                .location(URI.create("/gitminer/jobs/" + job.getId()))
+                .body(job);
+    }
+
+
+    // POST http://localhost:8080/gitminer/projects/stream
+    @Operation(
+            summary = "Post a new project from a large payload",
+            description = "Same body as POST /projects, read incrementally and written in chunks; returns the project without its collections",
+            tags = {"post", "project"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", content = {@Content(schema = @Schema(implementation = ProjectSummary.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema=@Schema())})
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ProjectSummary createProjectStreaming(InputStream body) throws IOException, InvalidProjectPayloadException {
+        Project project = streamingProjectIngestService.ingest(body, new IngestReport());
+        return ProjectSummary.of(project, Collections.emptySet());
     }
 
 
@@ -180,12 +370,7 @@ public class ProjectController {
     public void deleteProjectById(@Parameter (
             description = "id of the project to be delete") @PathVariable Long id)
             throws ProjectNotFoundException{
-        Optional<Project> foundProject = projectRepository.findById(id);
-
-        if (!foundProject.isPresent()) {
-            throw new ProjectNotFoundException();
-        }
-        projectRepository.deleteById(id);
+        deletionService.deleteProject(id);
     }
 
 
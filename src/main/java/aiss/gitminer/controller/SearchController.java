@@ -0,0 +1,62 @@
+package aiss.gitminer.controller;
+
+import aiss.gitminer.dto.Expand;
+import aiss.gitminer.dto.SearchResults;
+import aiss.gitminer.exception.InvalidSearchQueryException;
+import aiss.gitminer.service.SearchIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Set;
+
+@Tag(name = "Search", description = "Full-text search")
+@RestController
+@RequestMapping("/gitminer/search")
+public class SearchController {
+
+    @Autowired
+    SearchIndex searchIndex;
+
+    // Lucene reune (page + 1) * size resultados para devolver una pagina: las paginas profundas se rechazan
+    @Value("${gitminer.search.max-results:10000}")
+    int maxResults;
+
+    // GET http://localhost:8080/gitminer/search?q=NullPointerException&type=issue,comment
+    @Operation(
+            summary = "Search commits, issues and comments",
+            description = "Full-text search over commit titles and messages, issue titles and descriptions and comment bodies, "
+                    + "ranked by relevance (BM25). q uses Lucene query syntax (AND, OR, \"phrases\", prefix*)",
+            tags = {"search", "get"})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = SearchResults.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping
+    public SearchResults search(@RequestParam String q,
+                                @Parameter(description = "comma-separated types to include: commit, issue, comment")
+                                @RequestParam(required = false) String type,
+                                @Parameter(description = "page number; (page + 1) * size cannot exceed gitminer.search.max-results")
+                                @RequestParam(defaultValue = "0") int page,
+                                @RequestParam(defaultValue = "10") int size) throws InvalidSearchQueryException, IOException {
+        Set<String> types = Expand.parse(type);
+        if (!SearchIndex.TYPES.containsAll(types) || page < 0 || size < 1 || size > 100
+                || (page + 1L) * size > maxResults) {
+            throw new InvalidSearchQueryException();
+        }
+        return searchIndex.search(q, types, page, size);
+    }
+}
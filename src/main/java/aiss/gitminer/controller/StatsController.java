@@ -0,0 +1,39 @@
+package aiss.gitminer.controller;
+
+import aiss.gitminer.dto.StatsSummary;
+import aiss.gitminer.service.ProjectStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Stats", description = "Aggregated statistics")
+@RestController
+@RequestMapping("/gitminer/stats")
+public class StatsController {
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    // GET http://localhost:8080/gitminer/stats
+    @Operation(
+            summary = "Get the statistics of all projects",
+            description = "Number of projects and totals of commits, issues and comments, summed over the per-project rollups",
+            tags = {"get", "stats"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = StatsSummary.class),
+                            mediaType = "application/json")})
+    })
+    @GetMapping
+    public StatsSummary findAll() {
+        return projectStatsService.global();
+    }
+}
@@ -1,8 +1,16 @@
 package aiss.gitminer.controller;
 
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.exception.BatchGetLimitException;
+import aiss.gitminer.exception.InvalidCursorException;
 import aiss.gitminer.exception.UserNotFoundException;
 import aiss.gitminer.model.User;
 import aiss.gitminer.repository.UserRepository;
+import aiss.gitminer.repository.keyset.KeysetPage;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.FieldSpecifications;
+import aiss.gitminer.service.BatchLoader;
+import aiss.gitminer.service.UserIdentityCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +23,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,9 +34,18 @@ import java.util.Optional;
 @RequestMapping("/gitminer/users")
 public class UserController {
 
+    @Autowired
+    BatchLoader batchLoader;
+
     @Autowired // cargar repositorio de user con datos
     UserRepository userRepository;
 
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    UserIdentityCache userIdentityCache;
+
     // GET http://localhost:8080/gitminer/users
     @Operation(
             summary = "Retrieve a list of all users",
@@ -39,10 +57,18 @@ public class UserController {
                             mediaType = "application/json")})
     })
     @GetMapping // especificar metodo HTTP a utilizar
-    public List<User> findAll (@RequestParam(required = false) String name,
+    public ResponseEntity<List<User>> findAll (@RequestParam(required = false) String name,
                                   @RequestParam(required = false) String order,
+                                  @Parameter(description = "keyset cursor from the X-Next-Cursor header, empty to start; skips the count query")
+                                  @RequestParam(required = false) String cursor,
                                   @RequestParam(defaultValue = "0") int page,
-                                  @RequestParam(defaultValue = "5") int size) {
+                                  @RequestParam(defaultValue = "5") int size) throws InvalidCursorException {
+        if (cursor != null) {
+            KeysetPage<User> keysetPage = keysetQuery.find(User.class,
+                    FieldSpecifications.equalTo("name", name), order, cursor, size, null);
+            return KeysetResponses.of(keysetPage.getContent(), keysetPage.getNextCursor());
+        }
+
         Pageable paging;
 
         if (order != null) {
@@ -65,9 +91,46 @@ public class UserController {
         else {
             pageUsers = userRepository.findByName(name, paging);
         }
-        return pageUsers.getContent();
+        return ResponseEntity.ok(pageUsers.getContent());
+    }
+
+
+    // GET http://localhost:8080/gitminer/users?ids=1,2,3
+    @Operation(
+            summary = "Get several users by id",
+            description = "Users in the order of the ids, as in the list endpoint; ids that do not exist are "
+                    + "returned in missing instead of failing",
+            tags = {"get by id", "user"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @GetMapping(params = "ids")
+    public BatchResult<User> findByIds(@Parameter(description = "comma-separated ids")
+                                       @RequestParam List<Long> ids) throws BatchGetLimitException {
+        return batchGet(ids);
     }
 
+    // POST http://localhost:8080/gitminer/users/batch-get
+    @Operation(
+            summary = "Get several users by id",
+            description = "Same as GET /gitminer/users?ids= with the ids as a JSON array in the body, "
+                    + "for lists too long for a URL",
+            tags = {"get by id", "user"}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content =
+                    {@Content(schema = @Schema(implementation = BatchResult.class),
+                            mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", content = {@Content(schema = @Schema())})
+    })
+    @PostMapping("/batch-get")
+    public BatchResult<User> batchGet(@RequestBody List<Long> ids) throws BatchGetLimitException {
+        return batchLoader.load(ids, userRepository::findAllById, User::getId, user -> user);
+    }
 
     // GET https://localhost:8080/gitminer/users/:userId
     @Operation(
@@ -104,12 +167,26 @@ public class UserController {
     })
     @PostMapping
     public User createUser(@RequestBody User user) {
-        Optional<User> existingUser = userRepository.findByUsername(user.getUsername());
+        // misma identidad canonica que la ingesta: webUrl, o username si no viene webUrl
+        boolean byWebUrl = user.getWebUrl() != null;
+        Long cachedId = byWebUrl
+                ? userIdentityCache.idByWebUrl(user.getWebUrl())
+                : userIdentityCache.idByUsername(user.getUsername());
+        Optional<User> existingUser;
+        if (cachedId != null) {
+            existingUser = userRepository.findById(cachedId);
+        } else if (byWebUrl) {
+            existingUser = userRepository.findByWebUrl(user.getWebUrl());
+        } else {
+            existingUser = userRepository.findByUsername(user.getUsername());
+        }
 
-        return existingUser.orElseGet(() ->
+        User result = existingUser.orElseGet(() ->
                 userRepository.save(
                         new User(user.getUsername(), user.getName(), user.getAvatarUrl(), user.getWebUrl())
                 )
         );
+        userIdentityCache.put(result);
+        return result;
     }
 }
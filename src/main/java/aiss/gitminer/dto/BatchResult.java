@@ -0,0 +1,28 @@
+package aiss.gitminer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// Respuesta de ?ids= y /batch-get: los encontrados en el orden pedido y los ids que no existen
+public class BatchResult<T> {
+
+    @JsonProperty("items")
+    private final List<T> items;
+
+    @JsonProperty("missing")
+    private final List<Long> missing;
+
+    public BatchResult(List<T> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
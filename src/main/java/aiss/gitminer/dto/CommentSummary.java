@@ -0,0 +1,96 @@
+package aiss.gitminer.dto;
+
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.Set;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CommentSummary {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("body")
+    private String body;
+
+    @JsonProperty("author_id")
+    private Long authorId;
+
+    @JsonProperty("author")
+    private User author;
+
+    @JsonProperty("created_at")
+    private Instant createdAt;
+
+    @JsonProperty("updated_at")
+    private Instant updatedAt;
+
+    public CommentSummary() {}
+
+    public static CommentSummary of(Comment comment, Set<String> expand) {
+        CommentSummary summary = new CommentSummary();
+        summary.setId(comment.getId());
+        summary.setBody(comment.getBody());
+        summary.setCreatedAt(comment.getCreatedAt());
+        summary.setUpdatedAt(comment.getUpdatedAt());
+        if (comment.getAuthor() != null) {
+            summary.setAuthorId(comment.getAuthor().getId());
+            if (expand.contains(Expand.AUTHOR)) {
+                summary.setAuthor(comment.getAuthor());
+            }
+        }
+        return summary;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(User author) {
+        this.author = author;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
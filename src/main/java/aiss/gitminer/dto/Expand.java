@@ -0,0 +1,28 @@
+package aiss.gitminer.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Colecciones anidadas pedidas con ?expand=commits,issues,comments,labels,author
+public class Expand {
+
+    public static final String COMMITS = "commits";
+    public static final String ISSUES = "issues";
+    public static final String COMMENTS = "comments";
+    public static final String LABELS = "labels";
+    public static final String AUTHOR = "author";
+
+    private Expand() {}
+
+    public static Set<String> parse(String expand) {
+        if (expand == null || expand.isBlank()) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(expand.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,54 @@
+package aiss.gitminer.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Histograma en columnas: el inicio de cada intervalo (UTC) y una serie de cuentas alineada con el por cada
+// medida, p.ej. {"bucket":"week","buckets":[...],"opened":[...],"closed":[...]}. Solo aparecen los intervalos con datos.
+@JsonPropertyOrder({"bucket", "buckets"})
+public class Histogram {
+
+    @JsonProperty("bucket")
+    private final String bucket;
+
+    @JsonProperty("buckets")
+    private final List<Instant> buckets = new ArrayList<>();
+
+    private final Map<String, List<Long>> series = new LinkedHashMap<>();
+
+    public Histogram(String bucket, String... series) {
+        this.bucket = bucket;
+        for (String name : series) {
+            this.series.put(name, new ArrayList<>());
+        }
+    }
+
+    // counts en el mismo orden que los nombres de serie del constructor
+    public void add(Instant start, long... counts) {
+        buckets.add(start);
+        int i = 0;
+        for (List<Long> values : series.values()) {
+            values.add(counts[i++]);
+        }
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public List<Instant> getBuckets() {
+        return buckets;
+    }
+
+    @JsonAnyGetter
+    public Map<String, List<Long>> getSeries() {
+        return series;
+    }
+}
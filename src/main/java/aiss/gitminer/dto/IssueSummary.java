@@ -0,0 +1,204 @@
+package aiss.gitminer.dto;
+
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IssueSummary {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("description")
+    private String description;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("created_at")
+    private Instant createdAt;
+
+    @JsonProperty("updated_at")
+    private Instant updatedAt;
+
+    @JsonProperty("closed_at")
+    private Instant closedAt;
+
+    @JsonProperty("votes")
+    private Integer votes;
+
+    @JsonProperty("author_id")
+    private Long authorId;
+
+    @JsonProperty("assignee_id")
+    private Long assigneeId;
+
+    @JsonProperty("author")
+    private User author;
+
+    @JsonProperty("assignee")
+    private User assignee;
+
+    @JsonProperty("labels")
+    private List<String> labels;
+
+    @JsonProperty("comments")
+    private List<CommentSummary> comments;
+
+    public IssueSummary() {}
+
+    // solo se recorren las colecciones pedidas en expand
+    public static IssueSummary of(Issue issue, Set<String> expand) {
+        IssueSummary summary = new IssueSummary();
+        summary.setId(issue.getId());
+        summary.setTitle(issue.getTitle());
+        summary.setDescription(issue.getDescription());
+        summary.setState(issue.getState());
+        summary.setCreatedAt(issue.getCreatedAt());
+        summary.setUpdatedAt(issue.getUpdatedAt());
+        summary.setClosedAt(issue.getClosedAt());
+        summary.setVotes(issue.getVotes());
+        if (issue.getAuthor() != null) {
+            summary.setAuthorId(issue.getAuthor().getId());
+        }
+        if (issue.getAssignee() != null) {
+            summary.setAssigneeId(issue.getAssignee().getId());
+        }
+        if (expand.contains(Expand.AUTHOR)) {
+            summary.setAuthor(issue.getAuthor());
+            summary.setAssignee(issue.getAssignee());
+        }
+        if (expand.contains(Expand.LABELS) && issue.getLabels() != null) {
+            summary.setLabels(new ArrayList<>(issue.getLabels()));
+        }
+        if (expand.contains(Expand.COMMENTS) && issue.getComments() != null) {
+            summary.setComments(issue.getComments().stream()
+                    .map(comment -> CommentSummary.of(comment, expand))
+                    .collect(Collectors.toList()));
+        }
+        return summary;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(Instant closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public Integer getVotes() {
+        return votes;
+    }
+
+    public void setVotes(Integer votes) {
+        this.votes = votes;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public Long getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(Long assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(User author) {
+        this.author = author;
+    }
+
+    public User getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(User assignee) {
+        this.assignee = assignee;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(List<String> labels) {
+        this.labels = labels;
+    }
+
+    public List<CommentSummary> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<CommentSummary> comments) {
+        this.comments = comments;
+    }
+}
@@ -0,0 +1,92 @@
+package aiss.gitminer.dto;
+
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Project;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectSummary {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("web_url")
+    private String webUrl;
+
+    @JsonProperty("commits")
+    private List<Commit> commits;
+
+    @JsonProperty("issues")
+    private List<IssueSummary> issues;
+
+    public ProjectSummary() {}
+
+    public ProjectSummary(Long id, String name, String webUrl) {
+        this.id = id;
+        this.name = name;
+        this.webUrl = webUrl;
+    }
+
+    // solo se recorren las colecciones pedidas en expand
+    public static ProjectSummary of(Project project, Set<String> expand) {
+        ProjectSummary summary = new ProjectSummary(project.getId(), project.getName(), project.getWebUrl());
+        if (expand.contains(Expand.COMMITS) && project.getCommits() != null) {
+            summary.setCommits(new ArrayList<>(project.getCommits()));
+        }
+        if (expand.contains(Expand.ISSUES) && project.getIssues() != null) {
+            summary.setIssues(project.getIssues().stream()
+                    .map(issue -> IssueSummary.of(issue, expand))
+                    .collect(Collectors.toList()));
+        }
+        return summary;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getWebUrl() {
+        return webUrl;
+    }
+
+    public void setWebUrl(String webUrl) {
+        this.webUrl = webUrl;
+    }
+
+    public List<Commit> getCommits() {
+        return commits;
+    }
+
+    public void setCommits(List<Commit> commits) {
+        this.commits = commits;
+    }
+
+    public List<IssueSummary> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<IssueSummary> issues) {
+        this.issues = issues;
+    }
+}
@@ -0,0 +1,59 @@
+package aiss.gitminer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// Pagina de resultados de /gitminer/search ordenada por relevancia
+public class SearchResults {
+
+    @JsonProperty("total")
+    private final long total;
+
+    @JsonProperty("hits")
+    private final List<Hit> hits;
+
+    public SearchResults(long total, List<Hit> hits) {
+        this.total = total;
+        this.hits = hits;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    // tipo (commit, issue, comment) e id de la entidad, para pedirla a su endpoint
+    public static class Hit {
+
+        @JsonProperty("type")
+        private final String type;
+
+        @JsonProperty("id")
+        private final long id;
+
+        @JsonProperty("score")
+        private final float score;
+
+        public Hit(String type, long id, float score) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
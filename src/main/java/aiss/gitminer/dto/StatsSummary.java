@@ -0,0 +1,110 @@
+package aiss.gitminer.dto;
+
+import aiss.gitminer.model.AuthorStats;
+import aiss.gitminer.model.ProjectStats;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// Respuesta de /projects/{id}/stats y /stats: los contadores de las tablas de estadisticas y sus cocientes
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatsSummary {
+
+    @JsonProperty("project_id")
+    private Long projectId;
+
+    @JsonProperty("projects")
+    private Long projects;
+
+    @JsonProperty("commits")
+    private long commits;
+
+    @JsonProperty("issues")
+    private long issues;
+
+    @JsonProperty("open_issues")
+    private long openIssues;
+
+    @JsonProperty("closed_issues")
+    private long closedIssues;
+
+    @JsonProperty("comments")
+    private long comments;
+
+    @JsonProperty("top_authors")
+    private List<AuthorStats> topAuthors;
+
+    public StatsSummary() {}
+
+    public StatsSummary(long commits, long openIssues, long closedIssues, long comments) {
+        this.commits = commits;
+        this.issues = openIssues + closedIssues;
+        this.openIssues = openIssues;
+        this.closedIssues = closedIssues;
+        this.comments = comments;
+    }
+
+    public static StatsSummary of(ProjectStats stats, List<AuthorStats> topAuthors) {
+        StatsSummary summary = new StatsSummary(stats.getCommits(), stats.getOpenIssues(),
+                stats.getClosedIssues(), stats.getComments());
+        summary.setProjectId(stats.getProjectId());
+        summary.setTopAuthors(topAuthors);
+        return summary;
+    }
+
+    // cerradas / total, 0 sin issues
+    @JsonProperty("closed_ratio")
+    public double getClosedRatio() {
+        return issues == 0 ? 0 : (double) closedIssues / issues;
+    }
+
+    @JsonProperty("comments_per_issue")
+    public double getCommentsPerIssue() {
+        return issues == 0 ? 0 : (double) comments / issues;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getProjects() {
+        return projects;
+    }
+
+    public void setProjects(Long projects) {
+        this.projects = projects;
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public long getIssues() {
+        return issues;
+    }
+
+    public long getOpenIssues() {
+        return openIssues;
+    }
+
+    public long getClosedIssues() {
+        return closedIssues;
+    }
+
+    public long getComments() {
+        return comments;
+    }
+
+    public List<AuthorStats> getTopAuthors() {
+        return topAuthors;
+    }
+
+    public void setTopAuthors(List<AuthorStats> topAuthors) {
+        this.topAuthors = topAuthors;
+    }
+}
@@ -0,0 +1,13 @@
+package aiss.gitminer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// no comprobada: la lanza UserResolver desde dentro de las ingestas y deshace la transaccion entera
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = "Every user needs a web_url or a username")
+public class UnidentifiedUserException extends RuntimeException {
+
+    public UnidentifiedUserException(String message) {
+        super(message);
+    }
+}
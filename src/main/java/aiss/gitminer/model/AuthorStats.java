@@ -0,0 +1,88 @@
+package aiss.gitminer.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+// Commits de cada autor (author_name) dentro de un proyecto; el indice sirve el top de autores sin ordenar
+@Entity
+@Table(name = "AuthorStats",
+        indexes = @Index(name = "idx_author_stats_project_commits", columnList = "projectId, commits"))
+@IdClass(AuthorStats.Key.class)
+public class AuthorStats {
+
+    @Id
+    @JsonIgnore
+    private Long projectId;
+
+    @Id
+    @JsonProperty("author")
+    private String author;
+
+    @JsonProperty("commits")
+    private long commits;
+
+    public AuthorStats() {}
+
+    public AuthorStats(Long projectId, String author, long commits) {
+        this.projectId = projectId;
+        this.author = author;
+        this.commits = commits;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public void setCommits(long commits) {
+        this.commits = commits;
+    }
+
+    public static class Key implements Serializable {
+        private Long projectId;
+        private String author;
+
+        public Key() {}
+
+        public Key(Long projectId, String author) {
+            this.projectId = projectId;
+            this.author = author;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(projectId, key.projectId) && Objects.equals(author, key.author);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, author);
+        }
+    }
+}
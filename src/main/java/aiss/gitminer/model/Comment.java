@@ -1,18 +1,34 @@
 
 package aiss.gitminer.model;
 
+import aiss.gitminer.service.SearchIndexListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 @Entity
-@Table(name = "Comment")
+@Table(name = "Comment",
+        uniqueConstraints = @UniqueConstraint(name = "uk_comment_issue_fingerprint", columnNames = {"fingerprint", "issueId"}),
+        indexes = {
+        @Index(name = "idx_comment_created_at", columnList = "createdAt"),
+        @Index(name = "idx_comment_author", columnList = "author_id")
+})
+@NamedEntityGraph(name = "Comment.author", attributeNodes = @NamedAttributeNode("author"))
+@EntityListeners(SearchIndexListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "comment")
 public class Comment {
 
     @Id
     @JsonProperty("id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
     private Long id;
 
     @JsonProperty("body")
@@ -22,25 +38,40 @@ public class Comment {
 
     @JsonProperty("author")
     @JoinColumn(name = "author_id", referencedColumnName = "id")
-    @OneToOne(cascade=CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User author;
 
     @JsonProperty("created_at")
-    @NotEmpty(message = "The field created_at cannot be empty.")
-    private String createdAt;
+    @NotNull(message = "The field created_at cannot be empty.")
+    private Instant createdAt;
 
     @JsonProperty("updated_at")
-    private String updatedAt;
+    private Instant updatedAt;
+
+    // SHA-256 del cuerpo normalizado y created_at, mantenido en cada escritura; unica dentro de cada issue
+    @JsonIgnore
+    @Column(length = ContentFingerprint.LENGTH)
+    private String fingerprint;
 
     public Comment() {}
 
-    public Comment(String body, User author, String createdAt, String updatedAt) {
+    public Comment(String body, User author, Instant createdAt, Instant updatedAt) {
         this.body = body;
         this.author = author;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void updateFingerprint() {
+        this.fingerprint = ContentFingerprint.of(body, createdAt);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
     public Long getId() {
         return id;
     }
@@ -65,19 +96,19 @@ public class Comment {
         this.author = author;
     }
 
-    public String getCreatedAt() {
+    public Instant getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(String createdAt) {
+    public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
 
-    public String getUpdatedAt() {
+    public Instant getUpdatedAt() {
         return updatedAt;
     }
 
-    public void setUpdatedAt(String updatedAt) {
+    public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
 
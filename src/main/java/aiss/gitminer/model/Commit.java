@@ -1,16 +1,30 @@
 package aiss.gitminer.model;
 
+import aiss.gitminer.service.SearchIndexListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 @Entity
-@Table(name = "Commit")
-public class Commit {
+@Table(name = "Commit", indexes = {
+        @Index(name = "idx_commit_authored_date", columnList = "authoredDate"),
+        @Index(name = "idx_commit_author_name_authored_date", columnList = "authorName, authoredDate")
+})
+@EntityListeners(SearchIndexListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "commit")
+public class Commit implements Versioned {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commit_seq")
+    @SequenceGenerator(name = "commit_seq", sequenceName = "commit_seq", allocationSize = 50)
     private Long id;
 
     @JsonProperty("title")
@@ -28,17 +42,27 @@ public class Commit {
     private String authorEmail;
 
     @JsonProperty("authored_date")
-    @NotEmpty(message = "Author date cannot be empty.")
-    private String authoredDate;
+    @NotNull(message = "Author date cannot be empty.")
+    private Instant authoredDate;
 
     @JsonProperty("web_url")
     @NotEmpty(message = "URL cannot be empty." +
             "")
         private String webUrl;
 
+    // sube en cada escritura de la fila
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
+    @JsonIgnore
+    @UpdateTimestamp
+    private Instant lastModified;
+
     public Commit() {}
 
-    public Commit(String title, String message, String authorName, String authorEmail, String authoredDate, String webUrl) {
+    public Commit(String title, String message, String authorName, String authorEmail, Instant authoredDate, String webUrl) {
         this.title = title;
         this.message = message;
         this.authorName = authorName;
@@ -87,11 +111,11 @@ public class Commit {
         this.authorEmail = authorEmail;
     }
 
-    public String getAuthoredDate() {
+    public Instant getAuthoredDate() {
         return authoredDate;
     }
 
-    public void setAuthoredDate(String authoredDate) {
+    public void setAuthoredDate(Instant authoredDate) {
         this.authoredDate = authoredDate;
     }
 
@@ -103,6 +127,21 @@ public class Commit {
         this.webUrl = webUrl;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
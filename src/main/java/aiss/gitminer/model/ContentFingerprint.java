@@ -0,0 +1,60 @@
+package aiss.gitminer.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Instant;
+
+// Huella de contenido de ancho fijo (SHA-256 en hexadecimal, 64 caracteres) para deduplicar
+// issues y comentarios con una busqueda indexada en lugar de comparar columnas TEXT
+public final class ContentFingerprint {
+
+    public static final int LENGTH = 64;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContentFingerprint() {}
+
+    public static String of(String text, Instant createdAt) {
+        return hash(normalize(text) + '\u0000' + (createdAt == null ? "" : createdAt.toString()));
+    }
+
+    // huella exacta (sin normalizar) de varios valores: dice si una fila guardada ha cambiado sin cargarla
+    public static String ofValues(Object... values) {
+        StringBuilder input = new StringBuilder();
+        for (Object value : values) {
+            // null no se confunde con la cadena "null"
+            input.append(value == null ? "\u0001" : value.toString()).append('\u0000');
+        }
+        return hash(input.toString());
+    }
+
+    private static String hash(String input) {
+        byte[] hash = sha256().digest(input.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[LENGTH];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    // mismos saltos de linea, sin espacios en los extremos y en forma NFC
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String unified = text.replace("\r\n", "\n").replace('\r', '\n').strip();
+        return Normalizer.normalize(unified, Normalizer.Form.NFC);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // todas las JVM estan obligadas a incluir SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
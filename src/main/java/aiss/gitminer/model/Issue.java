@@ -1,18 +1,44 @@
 
 package aiss.gitminer.model;
 
+import aiss.gitminer.service.SearchIndexListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import javax.persistence.*;
+import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "Issue")
-public class Issue {
+@Table(name = "Issue",
+        uniqueConstraints = @UniqueConstraint(name = "uk_issue_project_fingerprint", columnNames = {"fingerprint", "projectId"}),
+        indexes = {
+        @Index(name = "idx_issue_created_at", columnList = "createdAt"),
+        @Index(name = "idx_issue_updated_at", columnList = "updatedAt"),
+        @Index(name = "idx_issue_closed_at", columnList = "closedAt"),
+        @Index(name = "idx_issue_state_created_at", columnList = "state, createdAt"),
+        @Index(name = "idx_issue_state_author", columnList = "state, author_id"),
+        @Index(name = "idx_issue_author", columnList = "author_id")
+})
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Issue.users",
+                attributeNodes = {@NamedAttributeNode("author"), @NamedAttributeNode("assignee")}),
+        @NamedEntityGraph(name = "Issue.comments",
+                attributeNodes = @NamedAttributeNode(value = "comments", subgraph = "comment.author"),
+                subgraphs = @NamedSubgraph(name = "comment.author", attributeNodes = @NamedAttributeNode("author")))
+})
+@EntityListeners(SearchIndexListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "issue")
+public class Issue implements Versioned {
 
     @Id
     @JsonProperty("id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "issue_seq")
+    @SequenceGenerator(name = "issue_seq", sequenceName = "issue_seq", allocationSize = 50)
     private Long id;
 
     @JsonProperty("title")
@@ -26,27 +52,33 @@ public class Issue {
     private String state;
 
     @JsonProperty("created_at")
-    private String createdAt;
+    private Instant createdAt;
 
     @JsonProperty("updated_at")
-    private String updatedAt;
+    private Instant updatedAt;
 
     @JsonProperty("closed_at")
-    private String closedAt;
+    private Instant closedAt;
+
+    // SHA-256 del titulo normalizado y created_at, mantenido en cada escritura; unica dentro de cada proyecto
+    @JsonIgnore
+    @Column(length = ContentFingerprint.LENGTH)
+    private String fingerprint;
 
     @JsonProperty("labels")
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "issue-labels")
     private List<String> labels;
 
     @JsonProperty("author")
     //@NotEmpty(message = "The author of the issue cannot be empty")
     @JoinColumn(name = "author_id",referencedColumnName = "id")
-    @OneToOne(cascade=CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User author;
 
     @JsonProperty("assignee")
     @JoinColumn(name = "assignee_id",referencedColumnName = "id")
-    @OneToOne(cascade=CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User assignee;
 
     @JsonProperty("votes")
@@ -55,12 +87,23 @@ public class Issue {
     @JsonProperty("comments")
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "issueId")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "issue-comments")
     private List<Comment> comments;
 
+    // sube en cada escritura de la fila y tambien al cambiar sus comentarios
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
+    @JsonIgnore
+    @UpdateTimestamp
+    private Instant lastModified;
+
     public Issue() {}
 
-    public Issue(String title, String description, String state, String createdAt,
-                 String updatedAt, String closedAt, List<String> labels, User author,
+    public Issue(String title, String description, String state, Instant createdAt,
+                 Instant updatedAt, Instant closedAt, List<String> labels, User author,
                  User assignee, Integer votes, List<Comment> comments) {
         this.title = title;
         this.description = description;
@@ -75,6 +118,16 @@ public class Issue {
         this.comments = comments;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void updateFingerprint() {
+        this.fingerprint = ContentFingerprint.of(title, createdAt);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
     public Long getId() {
         return id;
     }
@@ -107,27 +160,27 @@ public class Issue {
         this.state = state;
     }
 
-    public String getCreatedAt() {
+    public Instant getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(String createdAt) {
+    public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
 
-    public String getUpdatedAt() {
+    public Instant getUpdatedAt() {
         return updatedAt;
     }
 
-    public void setUpdatedAt(String updatedAt) {
+    public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
 
-    public String getClosedAt() {
+    public Instant getClosedAt() {
         return closedAt;
     }
 
-    public void setClosedAt(String closedAt) {
+    public void setClosedAt(Instant closedAt) {
         this.closedAt = closedAt;
     }
 
@@ -171,6 +224,21 @@ public class Issue {
         this.comments = comments;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -1,19 +1,31 @@
 
 package aiss.gitminer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
+import java.time.Instant;
 import java.util.List;
 
 
 @Entity
-@Table(name = "Project")
-public class Project {
+@Table(name = "Project", uniqueConstraints = @UniqueConstraint(name = "uk_project_name", columnNames = "name"))
+@NamedEntityGraph(name = "Project.issues",
+        attributeNodes = @NamedAttributeNode(value = "issues", subgraph = "issue.users"),
+        subgraphs = @NamedSubgraph(name = "issue.users",
+                attributeNodes = {@NamedAttributeNode("author"), @NamedAttributeNode("assignee")}))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project")
+public class Project implements Versioned {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_seq")
+    @SequenceGenerator(name = "project_seq", sequenceName = "project_seq", allocationSize = 50)
     public Long id;
 
     @JsonProperty("name")
@@ -27,13 +39,25 @@ public class Project {
     @JsonProperty("commits")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "projectId")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project-commits")
     private List<Commit> commits;
 
     @JsonProperty("issues")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "projectId")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project-issues")
     private List<Issue> issues;
 
+    // sube en cada escritura de la fila y tambien al cambiar sus commits o issues
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
+    @JsonIgnore
+    @UpdateTimestamp
+    private Instant lastModified;
+
     public Project() {}
 
     public Project(String name, String webUrl, List<Commit> commits, List<Issue> issues) {
@@ -83,6 +107,21 @@ public class Project {
         this.issues = issues;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,90 @@
+package aiss.gitminer.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.persistence.*;
+
+// Contadores de un proyecto mantenidos en cada ingesta y borrado, para no recorrer sus colecciones al leerlos
+@Entity
+@Table(name = "ProjectStats")
+public class ProjectStats {
+
+    // misma clave que el proyecto
+    @Id
+    @JsonProperty("project_id")
+    private Long projectId;
+
+    @JsonProperty("commits")
+    private long commits;
+
+    @JsonProperty("issues")
+    private long issues;
+
+    @JsonProperty("open_issues")
+    private long openIssues;
+
+    @JsonProperty("closed_issues")
+    private long closedIssues;
+
+    @JsonProperty("comments")
+    private long comments;
+
+    public ProjectStats() {}
+
+    public ProjectStats(Long projectId, long commits, long openIssues, long closedIssues, long comments) {
+        this.projectId = projectId;
+        this.commits = commits;
+        this.issues = openIssues + closedIssues;
+        this.openIssues = openIssues;
+        this.closedIssues = closedIssues;
+        this.comments = comments;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public void setCommits(long commits) {
+        this.commits = commits;
+    }
+
+    public long getIssues() {
+        return issues;
+    }
+
+    public void setIssues(long issues) {
+        this.issues = issues;
+    }
+
+    public long getOpenIssues() {
+        return openIssues;
+    }
+
+    public void setOpenIssues(long openIssues) {
+        this.openIssues = openIssues;
+    }
+
+    public long getClosedIssues() {
+        return closedIssues;
+    }
+
+    public void setClosedIssues(long closedIssues) {
+        this.closedIssues = closedIssues;
+    }
+
+    public long getComments() {
+        return comments;
+    }
+
+    public void setComments(long comments) {
+        this.comments = comments;
+    }
+}
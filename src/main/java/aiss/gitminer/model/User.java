@@ -1,18 +1,33 @@
 
 package aiss.gitminer.model;
 
+import aiss.gitminer.service.UserCacheListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 
 @Entity
-@Table(name = "GMUser")     // Watch out: User is a reserved keyword in H2
+@Table(name = "GMUser",     // Watch out: User is a reserved keyword in H2
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_gmuser_username", columnNames = "username"),
+                @UniqueConstraint(name = "uk_gmuser_web_url", columnNames = "webUrl")
+        },
+        indexes = @Index(name = "idx_gmuser_name", columnList = "name"))
+@EntityListeners(UserCacheListener.class)
+// autores y asignados se cargan en diferido: un proxy sin inicializar no debe serializar sus campos internos
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 public class User {
 
     @Id
     @JsonProperty("id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gmuser_seq")
+    @SequenceGenerator(name = "gmuser_seq", sequenceName = "gmuser_seq", allocationSize = 50)
     private Long id;
 
     @JsonProperty("username")
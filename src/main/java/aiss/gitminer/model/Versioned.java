@@ -0,0 +1,13 @@
+package aiss.gitminer.model;
+
+import java.time.Instant;
+
+// Entidades con version (@Version) y fecha de ultima escritura: son el ETag y el Last-Modified de sus GET
+public interface Versioned {
+
+    Long getVersion();
+
+    Instant getLastModified();
+
+    void setLastModified(Instant lastModified);
+}
@@ -3,15 +3,49 @@ package aiss.gitminer.repository;
 import aiss.gitminer.model.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface CommentRepository extends JpaRepository <Comment, Long> {
+public interface CommentRepository extends JpaRepository <Comment, Long>, JpaSpecificationExecutor<Comment> {
     Page<Comment> findByAuthor(String author, Pageable paging);
-    Optional<Comment> findByBodyAndCreatedAt(String body, String createdAt);
+    // la huella solo es unica dentro de cada padre: la mas antigua con ese contenido
+    Optional<Comment> findFirstByFingerprintOrderByIdAsc(String fingerprint);
+    List<Comment> findByFingerprintIsNullAndIdGreaterThan(Long id, Pageable paging);
+
+    @EntityGraph("Comment.author")
+    Page<Comment> findByCreatedAt(Pageable paging, Instant createdAt);
+
+    @Override
+    @EntityGraph("Comment.author")
+    Page<Comment> findAll(Pageable pageable);
+
+    // GET /comments: cache de consultas de Hibernate para la pagina y el recuento (se invalida al escribir en la tabla)
+    @Override
+    @EntityGraph("Comment.author")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<Comment> findAll(Specification<Comment> spec, Pageable pageable);
 
-    Page<Comment> findByCreatedAt(Pageable paging, String createdAt);
+    // cursor de solo avance para la exportacion NDJSON; hay que consumirlo dentro de una transaccion. No lee ni
+    // rellena la cache de segundo nivel: un volcado completo la llenaria de filas que nadie va a pedir
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select c from Comment c left join fetch c.author order by c.id")
+    Stream<Comment> streamAll();
 }
@@ -3,15 +3,40 @@ package aiss.gitminer.repository;
 import aiss.gitminer.model.Commit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
-public interface CommitRepository extends JpaRepository<Commit, Long> {
+public interface CommitRepository extends JpaRepository<Commit, Long>, JpaSpecificationExecutor<Commit> {
     Page<Commit> findById (Long id, Pageable pageable);
     Page<Commit> findByAuthorName(String author_name, Pageable paging);
 
-    Page<Commit> findByAuthoredDate(String authoredDate, Pageable paging);
+    Page<Commit> findByAuthoredDate(Instant authoredDate, Pageable paging);
+
+    Page<Commit> findByAuthorNameAndAuthoredDate(String authorName, Instant authoredDate, Pageable paging);
+
+    // GET /commits: cache de consultas de Hibernate para la pagina y el recuento (se invalida al escribir en la tabla)
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<Commit> findAll(Specification<Commit> spec, Pageable pageable);
 
-    Page<Commit> findByAuthorNameAndAuthoredDate(String authorName, String authoredDate, Pageable paging);
+    // cursor de solo avance para la exportacion NDJSON; hay que consumirlo dentro de una transaccion. No lee ni
+    // rellena la cache de segundo nivel: un volcado completo la llenaria de filas que nadie va a pedir
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select c from Commit c order by c.id")
+    Stream<Commit> streamAll();
 }
@@ -3,19 +3,51 @@ package aiss.gitminer.repository;
 import aiss.gitminer.model.Issue;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface IssueRepository extends JpaRepository<Issue, Long> {
+public interface IssueRepository extends JpaRepository<Issue, Long>, JpaSpecificationExecutor<Issue> {
     Page<Issue> findByState(String state, Pageable paging);
-    Optional<Issue> findByTitleAndCreatedAt(String title, String createdAt);
+    // la huella solo es unica dentro de cada padre: la mas antigua con ese contenido
+    Optional<Issue> findFirstByFingerprintOrderByIdAsc(String fingerprint);
+    List<Issue> findByFingerprintIsNullAndIdGreaterThan(Long id, Pageable paging);
 
-    Page<Issue> findByStateAndCreatedAt(String state, String createdAt, Pageable paging);
+    Page<Issue> findByStateAndCreatedAt(String state, Instant createdAt, Pageable paging);
 
     Page<Issue> findByStateAndAuthorId(String state, Long authorId, Pageable paging);
 
-    Page<Issue> findByCreatedAt(String createdAt, Pageable paging);
+    Page<Issue> findByCreatedAt(Instant createdAt, Pageable paging);
+
+    // GET /issues: cache de consultas de Hibernate para la pagina y el recuento (se invalida al escribir en la tabla)
+    @Override
+    @EntityGraph("Issue.users")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<Issue> findAll(Specification<Issue> spec, Pageable pageable);
+
+    @EntityGraph("Issue.comments")
+    Optional<Issue> findWithCommentsById(Long id);
+
+    // cursor de solo avance para la exportacion NDJSON; hay que consumirlo dentro de una transaccion. No lee ni
+    // rellena la cache de segundo nivel: un volcado completo la llenaria de filas que nadie va a pedir
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select i from Issue i left join fetch i.author left join fetch i.assignee order by i.id")
+    Stream<Issue> streamAll();
 }
@@ -3,12 +3,25 @@ package aiss.gitminer.repository;
 import aiss.gitminer.model.Project;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+    // consultas de la cache de consultas de Hibernate (se invalidan al escribir en la tabla)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Project findByName(String name);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Page<Project> findByName(String name, Pageable paging);
 
+    @EntityGraph("Project.issues")
+    Optional<Project> findWithIssuesById(Long id);
+
 }
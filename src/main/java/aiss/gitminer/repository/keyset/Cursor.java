@@ -0,0 +1,56 @@
+package aiss.gitminer.repository.keyset;
+
+import aiss.gitminer.exception.InvalidCursorException;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posicion opaca de una pagina keyset: valor de la columna de orden y id de la ultima fila devuelta.
+// Se codifica como base64url de "<id>:v<valor>" o "<id>:n" cuando el valor es null.
+public class Cursor {
+
+    // incluye los formateadores de java.time para columnas de orden como Instant
+    private static final DefaultFormattingConversionService CONVERSION = new DefaultFormattingConversionService();
+
+    private final Long id;
+    private final Object value;
+
+    public Cursor(Long id, Object value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String encode() {
+        String raw = id + ":" + (value == null ? "n" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // valueType es el tipo Java de la columna de orden, o null si se ordena solo por id
+    public static Cursor decode(String cursor, Class<?> valueType) throws InvalidCursorException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            Long id = Long.valueOf(raw.substring(0, separator));
+            String value = raw.substring(separator + 1);
+            if (value.equals("n") || valueType == null) {
+                return new Cursor(id, null);
+            }
+            if (!value.startsWith("v")) {
+                throw new InvalidCursorException();
+            }
+            return new Cursor(id, CONVERSION.convert(value.substring(1), valueType));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | ConversionException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package aiss.gitminer.repository.keyset;
+
+import java.util.List;
+
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    // null cuando no quedan mas filas
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,97 @@
+package aiss.gitminer.repository.keyset;
+
+import aiss.gitminer.exception.InvalidCursorException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Paginacion por cursor (seek): WHERE (orden, id) > (ultimo valor, ultimo id) ORDER BY orden, id LIMIT size + 1.
+// No lanza COUNT(*) y el coste de una pagina no depende de lo lejos que este del principio.
+// Los null de la columna de orden van siempre primero, en los dos sentidos.
+@Repository
+@Transactional(readOnly = true)
+public class KeysetQuery {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    // order: como el parametro order de los controladores ("-campo" descendente), o null para ordenar por id
+    // cursor: el devuelto por la pagina anterior, o cadena vacia para empezar por el principio
+    public <T> KeysetPage<T> find(Class<T> type, Specification<T> filter, String order,
+                                  String cursor, int size, String entityGraph) throws InvalidCursorException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        boolean descending = order != null && order.startsWith("-");
+        String sortProperty = order == null ? null : (descending ? order.substring(1) : order);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Path<Long> idPath = root.get("id");
+        Path<Comparable<Object>> sortPath = sortProperty == null ? null : root.get(sortProperty);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        Cursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = Cursor.decode(cursor, sortPath == null ? null : sortPath.getJavaType());
+            predicates.add(seek(cb, sortPath, idPath, after, descending));
+        }
+
+        List<Order> orderBy = new ArrayList<>();
+        if (sortPath != null) {
+            // JPA no tiene NULLS FIRST; si el cursor ya trae un valor el seek excluye los null y sobra
+            if (after == null || after.getValue() == null) {
+                orderBy.add(cb.asc(cb.<Integer>selectCase().when(cb.isNull(sortPath), 0).otherwise(1)));
+            }
+            orderBy.add(descending ? cb.desc(sortPath) : cb.asc(sortPath));
+        }
+        orderBy.add(descending ? cb.desc(idPath) : cb.asc(idPath));
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(orderBy);
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query).setMaxResults(size + 1);
+        if (entityGraph != null) {
+            typedQuery.setHint("javax.persistence.fetchgraph", entityManager.getEntityGraph(entityGraph));
+        }
+        List<T> rows = typedQuery.getResultList();
+
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> content = new ArrayList<>(rows.subList(0, size));
+        T last = content.get(size - 1);
+        Object lastValue = sortProperty == null ? null
+                : PropertyAccessorFactory.forDirectFieldAccess(last).getPropertyValue(sortProperty);
+        Long lastId = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(last);
+        return new KeysetPage<>(content, new Cursor(lastId, lastValue).encode());
+    }
+
+    private Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Long> idPath,
+                           Cursor after, boolean descending) {
+        Predicate idAfter = descending ? cb.lessThan(idPath, after.getId()) : cb.greaterThan(idPath, after.getId());
+        if (sortPath == null) {
+            return idAfter;
+        }
+        if (after.getValue() == null) {
+            return cb.or(cb.isNotNull(sortPath), cb.and(cb.isNull(sortPath), idAfter));
+        }
+        @SuppressWarnings("unchecked")
+        Comparable<Object> value = (Comparable<Object>) after.getValue();
+        Predicate valueAfter = descending ? cb.lessThan(sortPath, value) : cb.greaterThan(sortPath, value);
+        return cb.or(valueAfter, cb.and(cb.equal(sortPath, value), idAfter));
+    }
+}
@@ -0,0 +1,35 @@
+package aiss.gitminer.repository.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+
+public class FieldSpecifications {
+
+    private FieldSpecifications() {}
+
+    // null cuando no se indica valor, para combinarlo con Specification.where(...).and(...)
+    public static <T> Specification<T> equalTo(String attribute, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    // rango semiabierto [since, until); cualquiera de los dos limites puede ser null
+    public static <T, Y extends Comparable<? super Y>> Specification<T> between(String attribute, Y since, Y until) {
+        if (since == null && until == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Predicate predicate = cb.conjunction();
+            if (since != null) {
+                predicate = cb.and(predicate, cb.greaterThanOrEqualTo(root.<Y>get(attribute), since));
+            }
+            if (until != null) {
+                predicate = cb.and(predicate, cb.lessThan(root.<Y>get(attribute), until));
+            }
+            return predicate;
+        };
+    }
+}
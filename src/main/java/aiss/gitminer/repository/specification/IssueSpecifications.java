@@ -0,0 +1,54 @@
+package aiss.gitminer.repository.specification;
+
+import aiss.gitminer.model.Issue;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+// Filtros de issues que se combinan en una unica consulta SQL paginada.
+// Cada filtro devuelve null cuando no se indica, y Specification lo ignora al combinarlos.
+public class IssueSpecifications {
+
+    private IssueSpecifications() {}
+
+    public static Specification<Issue> matching(String state, Long authorId, Instant createdAt,
+                                                String label, Instant since, Instant until) {
+        return Specification.where(hasState(state))
+                .and(hasAuthor(authorId))
+                .and(createdAt(createdAt))
+                .and(hasLabel(label))
+                .and(FieldSpecifications.between("createdAt", since, until));
+    }
+
+    public static Specification<Issue> hasState(String state) {
+        if (state == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("state"), state);
+    }
+
+    public static Specification<Issue> hasAuthor(Long authorId) {
+        if (authorId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("author").get("id"), authorId);
+    }
+
+    public static Specification<Issue> createdAt(Instant createdAt) {
+        if (createdAt == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("createdAt"), createdAt);
+    }
+
+    public static Specification<Issue> hasLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            // una issue puede tener varias etiquetas: evitar filas repetidas
+            query.distinct(true);
+            return cb.equal(root.join("labels"), label);
+        };
+    }
+}
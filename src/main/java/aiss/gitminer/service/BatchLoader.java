@@ -0,0 +1,52 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.dto.BatchResult;
+import aiss.gitminer.exception.BatchGetLimitException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Lectura por lotes de ids para los GET ?ids= y POST /batch-get: findAllById con listas IN de tamaño acotado,
+// resultado en el orden de la peticion (sin repetidos) y los ids que no existen aparte, sin excepcion.
+@Service
+public class BatchLoader {
+
+    // tamaño maximo de cada lista IN
+    static final int CHUNK_SIZE = 500;
+
+    @Value("${gitminer.batch-get.max-ids:1000}")
+    int maxIds;
+
+    // view se aplica dentro de la transaccion, asi puede recorrer relaciones perezosas
+    @Transactional(readOnly = true)
+    public <T, R> BatchResult<R> load(List<Long> ids, Function<List<Long>, List<T>> finder,
+                                      Function<T, Long> idOf, Function<T, R> view) throws BatchGetLimitException {
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        requested.removeIf(Objects::isNull);
+        if (requested.size() > maxIds) {
+            throw new BatchGetLimitException();
+        }
+
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < requested.size(); from += CHUNK_SIZE) {
+            for (T row : finder.apply(requested.subList(from, Math.min(from + CHUNK_SIZE, requested.size())))) {
+                found.put(idOf.apply(row), row);
+            }
+        }
+
+        List<R> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            T row = found.get(id);
+            if (row != null) {
+                items.add(view.apply(row));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+}
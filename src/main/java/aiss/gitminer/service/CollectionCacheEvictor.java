@@ -0,0 +1,58 @@
+package aiss.gitminer.service;
+
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.List;
+
+// Las relaciones proyecto -> commits/issues e issue -> comentarios son unidireccionales: al borrar un hijo
+// directamente Hibernate no sabe que la coleccion cacheada del padre ha cambiado y hay que desalojarla aqui.
+@Component
+public class CollectionCacheEvictor {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    // id del padre de la fila (columna de la clave ajena), null si no tiene
+    public Long ownerOf(String table, String column, Long id) {
+        List<?> owners = entityManager.createNativeQuery("SELECT " + column + " FROM " + table + " WHERE id = :id")
+                .setParameter("id", id)
+                .getResultList();
+        if (owners.isEmpty() || owners.get(0) == null) {
+            return null;
+        }
+        return ((Number) owners.get(0)).longValue();
+    }
+
+    // dentro de una transaccion se desaloja al confirmarla: antes, una lectura concurrente podria volver a
+    // cachear la coleccion con el hijo que aun no se ha borrado
+    public void evict(Class<?> ownerType, String collection, Long ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(ownerType, collection, ownerId);
+                }
+            });
+        } else {
+            evictNow(ownerType, collection, ownerId);
+        }
+    }
+
+    private void evictNow(Class<?> ownerType, String collection, Long ownerId) {
+        entityManagerFactory.getCache().unwrap(Cache.class)
+                .evictCollectionData(ownerType.getName() + "." + collection, ownerId);
+    }
+}
@@ -0,0 +1,88 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.exception.CommentNotFoundException;
+import aiss.gitminer.exception.CommitNotFoundException;
+import aiss.gitminer.exception.IssueNotFoundException;
+import aiss.gitminer.exception.ProjectNotFoundException;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+// Borrados de los endpoints DELETE: la fila, los contadores de project_stats y la version del padre (su ETag)
+// cambian en la misma transaccion, asi un fallo a mitad no deja las estadisticas ni el ETag desfasados.
+// Las colecciones cacheadas del padre se desalojan al confirmar.
+@Service
+public class DeletionService {
+
+    @Autowired
+    CollectionCacheEvictor collectionCacheEvictor;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @Autowired
+    ResourceVersions resourceVersions;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional
+    public void deleteProject(Long id) throws ProjectNotFoundException {
+        Project project = entityManager.find(Project.class, id);
+        if (project == null) {
+            throw new ProjectNotFoundException();
+        }
+        entityManager.remove(project);
+        projectStatsService.delete(id);
+    }
+
+    @Transactional
+    public void deleteCommit(Long id) throws CommitNotFoundException {
+        Commit commit = entityManager.find(Commit.class, id);
+        if (commit == null) {
+            throw new CommitNotFoundException();
+        }
+        Long projectId = collectionCacheEvictor.ownerOf("commit", "project_id", id);
+        entityManager.remove(commit);
+        collectionCacheEvictor.evict(Project.class, "commits", projectId);
+        resourceVersions.touch(Project.class, projectId);
+        projectStatsService.removeCommit(projectId, commit.getAuthorName());
+    }
+
+    @Transactional
+    public void deleteIssue(Long id) throws IssueNotFoundException {
+        Issue issue = entityManager.find(Issue.class, id);
+        if (issue == null) {
+            throw new IssueNotFoundException();
+        }
+        Long projectId = collectionCacheEvictor.ownerOf("issue", "project_id", id);
+        long comments = projectStatsService.commentCount(id);
+        entityManager.remove(issue);
+        collectionCacheEvictor.evict(Project.class, "issues", projectId);
+        resourceVersions.touch(Project.class, projectId);
+        projectStatsService.removeIssue(projectId, issue.getState(), comments);
+    }
+
+    @Transactional
+    public void deleteComment(Long id) throws CommentNotFoundException {
+        Comment comment = entityManager.find(Comment.class, id);
+        if (comment == null) {
+            throw new CommentNotFoundException();
+        }
+        Long issueId = collectionCacheEvictor.ownerOf("comment", "issue_id", id);
+        Long projectId = issueId != null ? collectionCacheEvictor.ownerOf("issue", "project_id", issueId) : null;
+        entityManager.remove(comment);
+        collectionCacheEvictor.evict(Issue.class, "comments", issueId);
+        // el comentario tambien aparece dentro de GET /projects/{id}
+        resourceVersions.touch(Issue.class, issueId);
+        resourceVersions.touch(Project.class, projectId);
+        projectStatsService.removeComment(projectId);
+    }
+}
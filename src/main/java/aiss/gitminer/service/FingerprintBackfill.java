@@ -0,0 +1,205 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.ContentFingerprint;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.repository.CommentRepository;
+import aiss.gitminer.repository.IssueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Rellena la huella de las issues y comentarios guardados antes de que existiera la columna.
+// Recorre las filas por id en bloques, cada bloque en su propia transaccion. La huella es unica por padre
+// (proyecto o issue): una fila que repite el contenido de otra del mismo padre se queda sin huella.
+@Component
+public class FingerprintBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintBackfill.class);
+
+    static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    IssueRepository issueRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        Result issues = backfill(new Table<>("issue", "project_id", issueRepository::findByFingerprintIsNullAndIdGreaterThan,
+                Issue::getId, issue -> ContentFingerprint.of(issue.getTitle(), issue.getCreatedAt()), Issue::updateFingerprint));
+        Result comments = backfill(new Table<>("comment", "issue_id", commentRepository::findByFingerprintIsNullAndIdGreaterThan,
+                Comment::getId, comment -> ContentFingerprint.of(comment.getBody(), comment.getCreatedAt()),
+                Comment::updateFingerprint));
+        if (issues.written + comments.written > 0) {
+            log.info("Fingerprint backfill: {} issues, {} comments", issues.written, comments.written);
+        }
+        // las filas repetidas siguen sin huella y se vuelven a encontrar en cada arranque: solo se avisa
+        // la vez que se rellena la columna, despues no hay nada nuevo que contar
+        for (Result result : List.of(issues, comments)) {
+            if (result.duplicates.isEmpty()) {
+                continue;
+            }
+            if (result.written > 0) {
+                log.warn("{} duplicate {} rows left without fingerprint: {}", result.duplicates.size(), result.table,
+                        result.duplicates);
+            } else {
+                log.debug("{} duplicate {} rows still without fingerprint", result.duplicates.size(), result.table);
+            }
+        }
+    }
+
+    private <T> Result backfill(Table<T> table) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Pageable chunk = PageRequest.of(0, CHUNK_SIZE, Sort.by("id"));
+        Result result = new Result(table.name);
+        long lastId = 0;
+        while (true) {
+            long from = lastId;
+            Chunk done = transaction.execute(status -> {
+                List<T> rows = table.finder.find(from, chunk);
+                Map<Long, Long> parents = parents(table, rows);
+                Set<String> taken = taken(table, rows, parents);
+                Set<String> seen = new HashSet<>();
+                long written = 0;
+                for (T row : rows) {
+                    Long id = table.id.apply(row);
+                    Long parent = parents.get(id);
+                    String value = table.fingerprint.apply(row);
+                    // sin padre no hay restriccion que respetar
+                    if (parent != null && (!seen.add(parent + ":" + value) || taken.contains(parent + ":" + value))) {
+                        result.duplicates.add(id);
+                        continue;
+                    }
+                    table.update.accept(row);
+                    written++;
+                }
+                return new Chunk(rows.isEmpty() ? from : table.id.apply(rows.get(rows.size() - 1)), rows.size(), written);
+            });
+            result.written += done.written;
+            if (done.size < CHUNK_SIZE) {
+                return result;
+            }
+            lastId = done.lastId;
+        }
+    }
+
+    // la clave ajena del padre no esta mapeada en la entidad (relacion unidireccional)
+    private <T> Map<Long, Long> parents(Table<T> table, List<T> rows) {
+        Map<Long, Long> parents = new HashMap<>();
+        if (rows.isEmpty()) {
+            return parents;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            ids.add(table.id.apply(row));
+        }
+        List<?> result = entityManager.createNativeQuery(
+                        "SELECT id, " + table.parentColumn + " FROM " + table.name + " WHERE id IN (:ids)")
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Object row : result) {
+            Object[] columns = (Object[]) row;
+            if (columns[1] != null) {
+                parents.put(((Number) columns[0]).longValue(), ((Number) columns[1]).longValue());
+            }
+        }
+        return parents;
+    }
+
+    // pares padre:huella que ya estan guardados para los padres y huellas del bloque, en una sola consulta
+    private <T> Set<String> taken(Table<T> table, List<T> rows, Map<Long, Long> parents) {
+        Set<String> taken = new HashSet<>();
+        if (parents.isEmpty()) {
+            return taken;
+        }
+        Set<String> fingerprints = new HashSet<>();
+        for (T row : rows) {
+            if (parents.containsKey(table.id.apply(row))) {
+                fingerprints.add(table.fingerprint.apply(row));
+            }
+        }
+        List<?> result = entityManager.createNativeQuery("SELECT " + table.parentColumn + ", fingerprint FROM "
+                        + table.name + " WHERE " + table.parentColumn + " IN (:parents) AND fingerprint IN (:fingerprints)")
+                .setParameter("parents", new HashSet<>(parents.values()))
+                .setParameter("fingerprints", fingerprints)
+                .getResultList();
+        for (Object row : result) {
+            Object[] columns = (Object[]) row;
+            taken.add(((Number) columns[0]).longValue() + ":" + columns[1]);
+        }
+        return taken;
+    }
+
+    interface ChunkFinder<T> {
+        List<T> find(Long afterId, Pageable paging);
+    }
+
+    // tabla a rellenar, su columna de padre y como leer y actualizar sus filas
+    private static class Table<T> {
+        final String name;
+        final String parentColumn;
+        final ChunkFinder<T> finder;
+        final Function<T, Long> id;
+        final Function<T, String> fingerprint;
+        final Consumer<T> update;
+
+        Table(String name, String parentColumn, ChunkFinder<T> finder, Function<T, Long> id,
+              Function<T, String> fingerprint, Consumer<T> update) {
+            this.name = name;
+            this.parentColumn = parentColumn;
+            this.finder = finder;
+            this.id = id;
+            this.fingerprint = fingerprint;
+            this.update = update;
+        }
+    }
+
+    private static class Result {
+        final String table;
+        final List<Long> duplicates = new ArrayList<>();
+        long written;
+
+        Result(String table) {
+            this.table = table;
+        }
+    }
+
+    private static class Chunk {
+        final long lastId;
+        final int size;
+        final long written;
+
+        Chunk(long lastId, int size, long written) {
+            this.lastId = lastId;
+            this.size = size;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.ContentFingerprint;
+import aiss.gitminer.model.Issue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// La huella es unica por padre (issues de un proyecto, comentarios de una issue). Igual que el re-minado,
+// la ingesta se queda con la primera fila de cada huella y descarta las repetidas dentro del mismo padre.
+final class FingerprintDedup {
+
+    private FingerprintDedup() {}
+
+    static String of(Issue issue) {
+        return ContentFingerprint.of(issue.getTitle(), issue.getCreatedAt());
+    }
+
+    static String of(Comment comment) {
+        return ContentFingerprint.of(comment.getBody(), comment.getCreatedAt());
+    }
+
+    // quita de la lista (en el sitio) las issues cuya huella ya esta en seen o se repite; devuelve cuantas quita
+    static long issues(List<Issue> issues, Set<String> seen) {
+        List<Issue> kept = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            if (seen.add(of(issue))) {
+                kept.add(issue);
+            }
+        }
+        long skipped = issues.size() - kept.size();
+        if (skipped > 0) {
+            issues.clear();
+            issues.addAll(kept);
+        }
+        return skipped;
+    }
+
+    // comentarios repetidos dentro de cada issue; devuelve los descartados
+    static long comments(List<Issue> issues) {
+        long skipped = 0;
+        for (Issue issue : issues) {
+            List<Comment> comments = issue.getComments();
+            if (comments == null || comments.size() < 2) {
+                continue;
+            }
+            Set<String> seen = new HashSet<>();
+            List<Comment> kept = new ArrayList<>(comments.size());
+            for (Comment comment : comments) {
+                if (seen.add(of(comment))) {
+                    kept.add(comment);
+                }
+            }
+            if (kept.size() < comments.size()) {
+                skipped += comments.size() - kept.size();
+                issue.setComments(kept);
+            }
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,124 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.dto.Histogram;
+import aiss.gitminer.exception.InvalidHistogramBucketException;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.LongType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.*;
+
+// Histogramas de actividad calculados en la base de datos: GROUP BY DATE_TRUNC sobre las columnas TIMESTAMP
+// indexadas, de modo que solo viaja una fila por intervalo en lugar de cada commit o issue.
+@Service
+public class HistogramService {
+
+    public enum Bucket {
+        HOUR("HOUR"), DAY("DAY"), WEEK("ISO_WEEK"), MONTH("MONTH");
+
+        // unidad de DATE_TRUNC; ISO_WEEK empieza la semana en lunes
+        private final String unit;
+
+        Bucket(String unit) {
+            this.unit = unit;
+        }
+
+        public static Bucket parse(String value) throws InvalidHistogramBucketException {
+            for (Bucket bucket : values()) {
+                if (bucket.name().equalsIgnoreCase(value)) {
+                    return bucket;
+                }
+            }
+            throw new InvalidHistogramBucketException();
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public Histogram commits(Bucket bucket, Long projectId, String authorName, Instant since, Instant until) {
+        Filter filter = new Filter("authored_date", since, until)
+                .equal("project_id", projectId)
+                .equal("author_name", authorName);
+        Histogram histogram = new Histogram(bucket.label(), "commits");
+        count("commit", "authored_date", bucket, filter).forEach((start, count) -> histogram.add(start, count));
+        return histogram;
+    }
+
+    // abiertas por created_at y cerradas por closed_at, en los mismos intervalos
+    @Transactional(readOnly = true)
+    public Histogram issues(Bucket bucket, Long projectId, String state, Instant since, Instant until) {
+        Map<Instant, Long> opened = count("issue", "created_at", bucket, new Filter("created_at", since, until)
+                .equal("project_id", projectId)
+                .equal("state", state));
+        Map<Instant, Long> closed = count("issue", "closed_at", bucket, new Filter("closed_at", since, until)
+                .equal("project_id", projectId)
+                .equal("state", state));
+
+        SortedSet<Instant> starts = new TreeSet<>(opened.keySet());
+        starts.addAll(closed.keySet());
+        Histogram histogram = new Histogram(bucket.label(), "opened", "closed");
+        for (Instant start : starts) {
+            histogram.add(start, opened.getOrDefault(start, 0L), closed.getOrDefault(start, 0L));
+        }
+        return histogram;
+    }
+
+    private Map<Instant, Long> count(String table, String column, Bucket bucket, Filter filter) {
+        String truncated = "DATE_TRUNC('" + bucket.unit + "', " + column + ")";
+        NativeQuery<?> query = entityManager.createNativeQuery("SELECT " + truncated + " AS bucket, COUNT(*) AS hits"
+                        + " FROM " + table + " WHERE " + filter.where()
+                        + " GROUP BY " + truncated + " ORDER BY 1")
+                .unwrap(NativeQuery.class)
+                .addScalar("bucket", InstantType.INSTANCE)
+                .addScalar("hits", LongType.INSTANCE);
+        filter.parameters.forEach(query::setParameter);
+
+        Map<Instant, Long> counts = new LinkedHashMap<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            counts.put((Instant) columns[0], (Long) columns[1]);
+        }
+        return counts;
+    }
+
+    // condiciones opcionales del WHERE con sus parametros; la columna de fecha nunca es nula en el resultado
+    private static class Filter {
+        final List<String> conditions = new ArrayList<>();
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        Filter(String dateColumn, Instant since, Instant until) {
+            conditions.add(dateColumn + " IS NOT NULL");
+            if (since != null) {
+                conditions.add(dateColumn + " >= :since");
+                parameters.put("since", since);
+            }
+            if (until != null) {
+                conditions.add(dateColumn + " < :until");
+                parameters.put("until", until);
+            }
+        }
+
+        Filter equal(String column, Object value) {
+            if (value != null) {
+                conditions.add(column + " = :" + column);
+                parameters.put(column, value);
+            }
+            return this;
+        }
+
+        String where() {
+            return String.join(" AND ", conditions);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package aiss.gitminer.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+// Estado de una ingesta asincrona; el report se rellena por etapas mientras la tarea avanza
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @JsonProperty("id")
+    private final String id;
+
+    @JsonProperty("project_name")
+    private final String projectName;
+
+    @JsonProperty("report")
+    private final IngestReport report = new IngestReport();
+
+    @JsonProperty("submitted_at")
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Long projectId;
+    private volatile String error;
+
+    public IngestJob(String id, String projectName) {
+        this.id = id;
+        this.projectName = projectName;
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void succeeded(Long projectId) {
+        this.projectId = projectId;
+        finishedAt = Instant.now();
+        status = Status.SUCCEEDED;
+    }
+
+    void failed(Throwable cause) {
+        error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public IngestReport getReport() {
+        return report;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    @JsonProperty("status")
+    public Status getStatus() {
+        return status;
+    }
+
+    @JsonProperty("started_at")
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @JsonProperty("finished_at")
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    @JsonProperty("project_id")
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    @JsonProperty("error")
+    public String getError() {
+        return error;
+    }
+}
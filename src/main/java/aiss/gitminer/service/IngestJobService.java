@@ -0,0 +1,115 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.config.VirtualThreads;
+import aiss.gitminer.exception.IngestQueueFullException;
+import aiss.gitminer.model.Project;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ingestas en segundo plano: la peticion HTTP solo encola el proyecto y devuelve el id del job
+@Service
+public class IngestJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJobService.class);
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ProjectSyncService projectSyncService;
+
+    @Autowired
+    ProjectNameLocks projectNameLocks;
+
+    // pool propio y acotado (no es un bean Executor para no desactivar el applicationTaskExecutor de Spring Boot);
+    // con la cola llena se rechaza la tarea y el controlador responde 429
+    private final ThreadPoolTaskExecutor ingestExecutor;
+
+    // jobs en cola o en marcha: nunca caducan, salen de aqui al terminar
+    private final Map<String, IngestJob> active = new ConcurrentHashMap<>();
+
+    // los jobs terminados se olvidan pasado el tiempo de retencion
+    private final Cache<String, IngestJob> finished;
+
+    public IngestJobService(@Value("${gitminer.ingest.jobs.threads:2}") int threads,
+                            @Value("${gitminer.ingest.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${gitminer.ingest.jobs.retention:1h}") Duration retention,
+                            @Value("${gitminer.threads.virtual:false}") boolean virtualThreads) {
+        this.ingestExecutor = new ThreadPoolTaskExecutor();
+        ingestExecutor.setCorePoolSize(threads);
+        ingestExecutor.setMaxPoolSize(threads);
+        ingestExecutor.setQueueCapacity(queueCapacity);
+        ingestExecutor.setThreadNamePrefix("ingest-");
+        ingestExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        ingestExecutor.setAwaitTerminationSeconds(60);
+        // la cola acotada y el 429 se mantienen; solo cambia el tipo de hilo que ejecuta cada job
+        if (virtualThreads) {
+            VirtualThreads.threadFactory("ingest-vt-").ifPresent(ingestExecutor::setThreadFactory);
+        }
+        ingestExecutor.initialize();
+        this.finished = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(retention).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdown();
+    }
+
+    public IngestJob submit(Project project) throws IngestQueueFullException {
+        return submit(project, false);
+    }
+
+    // sync: re-minado incremental (ProjectSyncService) en lugar de ingesta
+    public IngestJob submit(Project project, boolean sync) throws IngestQueueFullException {
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), project.getName());
+        active.put(job.getId(), job);
+        try {
+            ingestExecutor.execute(() -> run(job, project, sync));
+        } catch (TaskRejectedException e) {
+            active.remove(job.getId());
+            throw new IngestQueueFullException();
+        }
+        return job;
+    }
+
+    public Optional<IngestJob> find(String id) {
+        IngestJob job = active.get(id);
+        return Optional.ofNullable(job != null ? job : finished.getIfPresent(id));
+    }
+
+    private void run(IngestJob job, Project project, boolean sync) {
+        try {
+            Project saved = projectNameLocks.withLock(project.getName(), () -> {
+                job.started();
+                return sync ? projectSyncService.sync(project, job.getReport())
+                        : projectIngestService.ingest(project, job.getReport());
+            });
+            job.succeeded(saved.getId());
+        } catch (Throwable e) {
+            // tambien los Error: un job no puede quedarse en RUNNING para siempre
+            log.warn("Ingest job {} for project '{}' failed", job.getId(), job.getProjectName(), e);
+            job.failed(e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            // primero a la cache de terminados, asi find lo encuentra siempre en uno de los dos sitios
+            finished.put(job.getId(), job);
+            active.remove(job.getId());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package aiss.gitminer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Contador gitminer.ingest.rows por tipo de entidad (etapa del IngestReport)
+@Component
+public class IngestMetrics {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    public void record(IngestReport report) {
+        for (IngestReport.Stage stage : report.getStages()) {
+            Counter.builder("gitminer.ingest.rows")
+                    .description("Rows written by project ingestion")
+                    .tag("entity", stage.getName())
+                    .register(meterRegistry)
+                    .increment(stage.getRows());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package aiss.gitminer.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Tiempos y filas escritas por cada etapa de una ingesta
+public class IngestReport {
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    public synchronized void record(String name, long rows, long nanos) {
+        stages.add(new Stage(name, rows, nanos / 1_000_000));
+    }
+
+    @JsonProperty("stages")
+    public synchronized List<Stage> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    @JsonProperty("total_rows")
+    public synchronized long getTotalRows() {
+        return stages.stream().mapToLong(Stage::getRows).sum();
+    }
+
+    @JsonProperty("total_millis")
+    public synchronized long getTotalMillis() {
+        return stages.stream().mapToLong(Stage::getMillis).sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : stages) {
+            sb.append(stage.getName()).append('=').append(stage.getRows())
+                    .append(" rows/").append(stage.getMillis()).append("ms ");
+        }
+        sb.append("total=").append(getTotalRows()).append(" rows/").append(getTotalMillis()).append("ms");
+        return sb.toString();
+    }
+
+    public static class Stage {
+
+        @JsonProperty("name")
+        private final String name;
+
+        @JsonProperty("rows")
+        private final long rows;
+
+        @JsonProperty("millis")
+        private final long millis;
+
+        public Stage(String name, long rows, long millis) {
+            this.name = name;
+            this.rows = rows;
+            this.millis = millis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.dto.CommentSummary;
+import aiss.gitminer.dto.IssueSummary;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.repository.CommentRepository;
+import aiss.gitminer.repository.CommitRepository;
+import aiss.gitminer.repository.IssueRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Exportacion NDJSON (un objeto JSON por linea) leyendo de un cursor de la base de datos.
+// Cada fila se escribe y se desacopla del contexto de persistencia antes de leer la siguiente,
+// asi la memoria no depende del numero de filas exportadas.
+@Service
+@Transactional(readOnly = true)
+public class NdjsonExportService {
+
+    // filas entre cada flush de la respuesta y limpieza del contexto de persistencia
+    static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    CommitRepository commitRepository;
+
+    @Autowired
+    IssueRepository issueRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    public long commits(OutputStream out) throws IOException {
+        return export(commitRepository::streamAll, Function.identity(), out);
+    }
+
+    // mismo formato que /gitminer/issues sin expand
+    public long issues(OutputStream out) throws IOException {
+        return export(issueRepository::streamAll, issue -> IssueSummary.of(issue, Collections.emptySet()), out);
+    }
+
+    // mismo formato que /gitminer/comments sin expand
+    public long comments(OutputStream out) throws IOException {
+        return export(commentRepository::streamAll,
+                comment -> CommentSummary.of(comment, Collections.emptySet()), out);
+    }
+
+    // Hibernate solo aplica el HINT_CACHE_MODE de la consulta mientras abre el cursor; las filas se hidratan
+    // despues, al avanzar, con el modo de la sesion, asi que se cambia en la sesion mientras dura el volcado
+    private <T> long export(Supplier<Stream<T>> query, Function<T, ?> mapper, OutputStream out) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try (Stream<T> rows = query.get()) {
+            return write(rows, mapper, out);
+        } finally {
+            session.setCacheMode(previous);
+        }
+    }
+
+    private <T> long write(Stream<T> rows, Function<T, ?> mapper, OutputStream out) throws IOException {
+        // sin separador entre valores raiz ni flush por fila: el salto de linea lo escribimos nosotros
+        ObjectWriter writer = objectMapper.writer()
+                .withRootValueSeparator((String) null)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.writeValue(generator, mapper.apply(row));
+                generator.writeRaw('\n');
+                entityManager.detach(row);
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                    // suelta tambien los usuarios cargados con join fetch
+                    entityManager.clear();
+                }
+            }
+        }
+        return written;
+    }
+}
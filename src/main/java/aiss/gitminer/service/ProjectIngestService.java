@@ -0,0 +1,109 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.*;
+import aiss.gitminer.repository.ProjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+
+// Ingesta de un proyecto completo por etapas: usuarios, commits, comentarios, issues y proyecto
+@Service
+public class ProjectIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectIngestService.class);
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    UserResolver userResolver;
+
+    @Autowired
+    UserIdentityCache userIdentityCache;
+
+    @Autowired
+    IngestMetrics ingestMetrics;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional
+    public Project ingest(Project project, IngestReport report) {
+        Project existing = projectRepository.findByName(project.getName());
+        if (existing != null) {
+            return existing;
+        }
+
+        List<Commit> commits = project.getCommits() != null ? project.getCommits() : Collections.emptyList();
+        List<Issue> issues = project.getIssues() != null ? project.getIssues() : Collections.emptyList();
+        // issues repetidas en el proyecto y comentarios repetidos en una issue romperian la huella unica
+        long duplicates = FingerprintDedup.issues(issues, new HashSet<>()) + FingerprintDedup.comments(issues);
+        if (duplicates > 0) {
+            log.info("Skipped {} duplicate issues and comments in project '{}'", duplicates, project.getName());
+        }
+
+        long start = System.nanoTime();
+        long usersWritten = userResolver.resolve(issues);
+        entityManager.flush();
+        report.record("users", usersWritten, System.nanoTime() - start);
+
+        StatsRollup stats = new StatsRollup();
+        start = System.nanoTime();
+        for (Commit c : commits) {
+            c.setId(null);
+            entityManager.persist(c);
+            stats.add(c);
+        }
+        entityManager.flush();
+        report.record("commits", commits.size(), System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long commentsWritten = 0;
+        for (Issue i : issues) {
+            if (i.getComments() != null) {
+                for (Comment c : i.getComments()) {
+                    c.setId(null);
+                    entityManager.persist(c);
+                    commentsWritten++;
+                }
+            }
+        }
+        entityManager.flush();
+        report.record("comments", commentsWritten, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long labelsWritten = 0;
+        for (Issue i : issues) {
+            i.setId(null);
+            entityManager.persist(i);
+            stats.add(i);
+            if (i.getLabels() != null) {
+                labelsWritten += i.getLabels().size();
+            }
+        }
+        entityManager.flush();
+        report.record("issues", issues.size(), System.nanoTime() - start);
+        // las etiquetas se escriben en el mismo flush que sus issues
+        report.record("labels", labelsWritten, 0);
+
+        start = System.nanoTime();
+        project.setId(null);
+        entityManager.persist(project);
+        projectStatsService.insert(project.getId(), stats);
+        entityManager.flush();
+        report.record("project", 1, System.nanoTime() - start);
+
+        log.info("Ingested project '{}': {} (user cache: {})", project.getName(), report, userIdentityCache.stats());
+        ingestMetrics.record(report);
+        return project;
+    }
+}
@@ -0,0 +1,46 @@
+package aiss.gitminer.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Serializa las ingestas de un mismo nombre de proyecto para que no compitan en la deduplicacion por findByName.
+// Numero fijo de locks repartidos por hash: memoria acotada a cambio de que dos nombres distintos
+// compartan lock de vez en cuando.
+@Component
+public class ProjectNameLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ProjectNameLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // el lock se libera despues del commit de la transaccion que abra action
+    public <T> T withLock(String name, Supplier<T> action) {
+        lock(name);
+        try {
+            return action.get();
+        } finally {
+            unlock(name);
+        }
+    }
+
+    // para la ingesta en streaming, que conoce el nombre a mitad de lectura; unlock desde el mismo hilo
+    public void lock(String name) {
+        stripe(name).lock();
+    }
+
+    public void unlock(String name) {
+        stripe(name).unlock();
+    }
+
+    private ReentrantLock stripe(String name) {
+        return locks[Math.floorMod(name == null ? 0 : name.hashCode(), STRIPES)];
+    }
+}
@@ -0,0 +1,206 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.dto.StatsSummary;
+import aiss.gitminer.model.AuthorStats;
+import aiss.gitminer.model.ProjectStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Tablas de estadisticas (project_stats y author_stats) mantenidas de forma incremental: las ingestas insertan
+// los contadores de lo que escriben y los borrados los decrementan en la misma fila, asi leerlas no depende
+// del tamaño del proyecto. La re-sincronizacion suma solo el delta; los proyectos anteriores a las tablas se
+// recalculan con SQL.
+@Service
+public class ProjectStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectStatsService.class);
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public Optional<StatsSummary> project(Long projectId, int topAuthors) {
+        ProjectStats stats = entityManager.find(ProjectStats.class, projectId);
+        if (stats == null) {
+            return Optional.empty();
+        }
+        List<AuthorStats> authors = entityManager.createQuery(
+                        "select a from AuthorStats a where a.projectId = :project order by a.commits desc, a.author",
+                        AuthorStats.class)
+                .setParameter("project", projectId)
+                .setMaxResults(topAuthors)
+                .getResultList();
+        return Optional.of(StatsSummary.of(stats, authors));
+    }
+
+    // una fila por proyecto, sin tocar commits ni issues
+    @Transactional(readOnly = true)
+    public StatsSummary global() {
+        Object[] totals = entityManager.createQuery("select count(s), coalesce(sum(s.commits), 0), "
+                        + "coalesce(sum(s.openIssues), 0), coalesce(sum(s.closedIssues), 0), coalesce(sum(s.comments), 0) "
+                        + "from ProjectStats s", Object[].class)
+                .getSingleResult();
+        StatsSummary summary = new StatsSummary(number(totals[1]), number(totals[2]), number(totals[3]),
+                number(totals[4]));
+        summary.setProjects(number(totals[0]));
+        return summary;
+    }
+
+    // se llama dentro de la transaccion de la ingesta, con el proyecto ya insertado
+    void insert(Long projectId, StatsRollup rollup) {
+        entityManager.persist(new ProjectStats(projectId, rollup.commits, rollup.openIssues, rollup.closedIssues,
+                rollup.comments));
+        for (Map.Entry<String, Long> author : rollup.authors.entrySet()) {
+            entityManager.persist(new AuthorStats(projectId, author.getKey(), author.getValue()));
+        }
+    }
+
+    // recalcula las filas del proyecto desde commits, issues y comentarios
+    @Transactional
+    public void rebuild(Long projectId) {
+        StatsRollup rollup = new StatsRollup();
+        rollup.commits = count("SELECT COUNT(*) FROM commit WHERE project_id = :id", projectId);
+        rollup.closedIssues = count("SELECT COUNT(*) FROM issue WHERE project_id = :id AND state = '"
+                + StatsRollup.CLOSED + "'", projectId);
+        rollup.openIssues = count("SELECT COUNT(*) FROM issue WHERE project_id = :id", projectId)
+                - rollup.closedIssues;
+        rollup.comments = count("SELECT COUNT(*) FROM comment c JOIN issue i ON i.id = c.issue_id "
+                + "WHERE i.project_id = :id", projectId);
+        List<?> authors = entityManager.createNativeQuery("SELECT author_name, COUNT(*) FROM commit "
+                        + "WHERE project_id = :project AND author_name IS NOT NULL GROUP BY author_name")
+                .setParameter("project", projectId)
+                .getResultList();
+        for (Object row : authors) {
+            Object[] columns = (Object[]) row;
+            rollup.authors.put((String) columns[0], number(columns[1]));
+        }
+        delete(projectId);
+        entityManager.flush();
+        insert(projectId, rollup);
+    }
+
+    @Transactional
+    public void removeCommit(Long projectId, String authorName) {
+        if (projectId == null) {
+            return;
+        }
+        add(projectId, -1, 0, 0, 0);
+        if (authorName != null) {
+            addAuthor(projectId, authorName, -1);
+        }
+    }
+
+    // re-sincronizacion: suma los deltas de lo que ha cambiado, sin recontar el proyecto.
+    // Sin fila previa (proyecto anterior a las tablas y aun sin backfill) se recalcula entera.
+    void apply(Long projectId, StatsRollup delta) {
+        if (add(projectId, delta.commits, delta.openIssues, delta.closedIssues, delta.comments) == 0) {
+            rebuild(projectId);
+            return;
+        }
+        for (Map.Entry<String, Long> author : delta.authors.entrySet()) {
+            if (author.getValue() != 0) {
+                addAuthor(projectId, author.getKey(), author.getValue());
+            }
+        }
+    }
+
+    // los comentarios de la issue se borran en cascada con ella
+    @Transactional
+    public void removeIssue(Long projectId, String state, long comments) {
+        if (projectId == null) {
+            return;
+        }
+        boolean closed = StatsRollup.CLOSED.equals(state);
+        add(projectId, 0, closed ? 0 : -1, closed ? -1 : 0, -comments);
+    }
+
+    @Transactional
+    public void removeComment(Long projectId) {
+        if (projectId != null) {
+            add(projectId, 0, 0, 0, -1);
+        }
+    }
+
+    @Transactional
+    public void delete(Long projectId) {
+        entityManager.createQuery("delete from AuthorStats a where a.projectId = :project")
+                .setParameter("project", projectId)
+                .executeUpdate();
+        entityManager.createQuery("delete from ProjectStats s where s.projectId = :project")
+                .setParameter("project", projectId)
+                .executeUpdate();
+    }
+
+    // comentarios de una issue, para descontarlos antes de borrarla
+    public long commentCount(Long issueId) {
+        return count("SELECT COUNT(*) FROM comment WHERE issue_id = :id", issueId);
+    }
+
+    // proyectos guardados antes de existir las tablas
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        List<?> missing = entityManager.createNativeQuery(
+                        "SELECT p.id FROM project p WHERE NOT EXISTS (SELECT 1 FROM project_stats s WHERE s.project_id = p.id)")
+                .getResultList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        log.info("Building stats rollups for {} projects", missing.size());
+        for (Object id : missing) {
+            rebuild(number(id));
+        }
+    }
+
+    // una sola sentencia por fila: dos borrados concurrentes no pierden ningun decremento
+    private int add(Long projectId, long commits, long openIssues, long closedIssues, long comments) {
+        return entityManager.createQuery("update ProjectStats s set s.commits = s.commits + :commits, "
+                        + "s.issues = s.issues + :issues, s.openIssues = s.openIssues + :open, "
+                        + "s.closedIssues = s.closedIssues + :closed, s.comments = s.comments + :comments "
+                        + "where s.projectId = :project")
+                .setParameter("commits", commits)
+                .setParameter("issues", openIssues + closedIssues)
+                .setParameter("open", openIssues)
+                .setParameter("closed", closedIssues)
+                .setParameter("comments", comments)
+                .setParameter("project", projectId)
+                .executeUpdate();
+    }
+
+    // la fila del autor se crea con su primer commit y se borra al quedarse sin ninguno
+    private void addAuthor(Long projectId, String author, long commits) {
+        int updated = entityManager.createQuery("update AuthorStats a set a.commits = a.commits + :commits "
+                        + "where a.projectId = :project and a.author = :author")
+                .setParameter("commits", commits)
+                .setParameter("project", projectId)
+                .setParameter("author", author)
+                .executeUpdate();
+        if (updated == 0 && commits > 0) {
+            entityManager.persist(new AuthorStats(projectId, author, commits));
+        } else if (commits < 0) {
+            entityManager.createQuery("delete from AuthorStats a "
+                            + "where a.projectId = :project and a.author = :author and a.commits <= 0")
+                    .setParameter("project", projectId)
+                    .setParameter("author", author)
+                    .executeUpdate();
+        }
+    }
+
+    private long count(String sql, Long id) {
+        return number(entityManager.createNativeQuery(sql).setParameter("id", id).getSingleResult());
+    }
+
+    private static long number(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+}
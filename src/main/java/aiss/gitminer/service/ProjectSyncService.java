@@ -0,0 +1,442 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.*;
+import aiss.gitminer.repository.ProjectRepository;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+// Re-minado incremental de un proyecto ya guardado: compara el grafo recibido con una proyeccion del almacenado
+// (id, clave natural y huella del contenido; web_url del commit, titulo + created_at de la issue, huella del
+// comentario) y solo carga las filas que han cambiado. Escribe las altas, cambios y bajas y suma su delta a las
+// estadisticas. Si el proyecto no existe se hace una ingesta normal.
+@Service
+public class ProjectSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectSyncService.class);
+
+    private static final int BATCH = 500;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    UserResolver userResolver;
+
+    @Autowired
+    IngestMetrics ingestMetrics;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @Autowired
+    ResourceVersions resourceVersions;
+
+    @Autowired
+    CollectionCacheEvictor collectionCacheEvictor;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional
+    public Project sync(Project incoming, IngestReport report) {
+        Project stored = projectRepository.findByName(incoming.getName());
+        if (stored == null) {
+            return projectIngestService.ingest(incoming, report);
+        }
+        List<Commit> commits = incoming.getCommits() != null ? incoming.getCommits() : Collections.emptyList();
+        List<Issue> issues = incoming.getIssues() != null ? incoming.getIssues() : Collections.emptyList();
+
+        long start = System.nanoTime();
+        long usersWritten = userResolver.resolve(issues);
+        report.record("users", usersWritten, System.nanoTime() - start);
+
+        // deltas de las estadisticas, sumados al final sobre las filas existentes
+        StatsRollup stats = new StatsRollup();
+
+        start = System.nanoTime();
+        Delta commitDelta = syncCommits(stored.getId(), commits, stats);
+        entityManager.flush();
+        commitDelta.record(report, "commits", System.nanoTime() - start);
+
+        start = System.nanoTime();
+        Delta commentDelta = new Delta();
+        Delta issueDelta = syncIssues(stored.getId(), issues, commentDelta, stats);
+        entityManager.flush();
+        issueDelta.record(report, "issues", System.nanoTime() - start);
+        // los comentarios se escriben en el mismo flush que sus issues
+        commentDelta.record(report, "comments", 0);
+
+        boolean projectChanged = update(stored.getWebUrl(), incoming.getWebUrl(), stored::setWebUrl);
+        // los cambios en el sitio de commits, issues y comentarios no tocan la coleccion del proyecto:
+        // sin esto su version, y con ella el ETag de GET /projects/{id}, seguirian siendo los de antes
+        if (commitDelta.changed() || issueDelta.changed() || commentDelta.changed()) {
+            resourceVersions.touch(Project.class, stored.getId());
+        }
+        entityManager.flush();
+        report.record("project", projectChanged ? 1 : 0, 0);
+
+        stats.comments = commentDelta.inserted - commentDelta.deleted;
+        projectStatsService.apply(stored.getId(), stats);
+
+        log.info("Synced project '{}': {}", stored.getName(), report);
+        ingestMetrics.record(report);
+        return stored;
+    }
+
+    private Delta syncCommits(Long projectId, List<Commit> incoming, StatsRollup stats) {
+        Map<String, Stored> byKey = new HashMap<>();
+        project("select c.id, c.webUrl, c.title, c.authoredDate, c.message, c.authorName, c.authorEmail "
+                + "from Project p join p.commits c where p.id = :project order by c.id", projectId, row -> {
+            String title = (String) row[2];
+            Instant authoredDate = (Instant) row[3];
+            String authorName = (String) row[5];
+            byKey.putIfAbsent(commitKey((String) row[1], title, authoredDate), new Stored((Long) row[0],
+                    commitHash(title, (String) row[4], authorName, (String) row[6], authoredDate), authorName));
+        });
+
+        Delta delta = new Delta();
+        Set<String> seen = new HashSet<>();
+        List<Long> inserted = new ArrayList<>();
+        Map<Long, Commit> changed = new HashMap<>();
+        for (Commit c : incoming) {
+            String key = commitKey(c.getWebUrl(), c.getTitle(), c.getAuthoredDate());
+            if (!seen.add(key)) {
+                continue;
+            }
+            Stored existing = byKey.get(key);
+            if (existing == null) {
+                c.setId(null);
+                entityManager.persist(c);
+                inserted.add(c.getId());
+                stats.commit(c.getAuthorName(), 1);
+                delta.inserted++;
+            } else if (!existing.hash.equals(commitHash(c.getTitle(), c.getMessage(), c.getAuthorName(),
+                    c.getAuthorEmail(), c.getAuthoredDate()))) {
+                changed.put(existing.id, c);
+            }
+        }
+        link(Commit.class, "commit", "project_id", projectId, inserted);
+
+        // solo se cargan las filas cuya huella no coincide
+        for (Commit existing : load(Commit.class, changed.keySet())) {
+            String authorName = existing.getAuthorName();
+            if (copy(changed.get(existing.getId()), existing)) {
+                delta.updated++;
+                if (!Objects.equals(authorName, existing.getAuthorName())) {
+                    stats.author(authorName, -1);
+                    stats.author(existing.getAuthorName(), 1);
+                }
+            }
+        }
+
+        List<Long> unseen = unseen(byKey, seen, row -> stats.commit(row.stat, -1));
+        load(Commit.class, unseen).forEach(entityManager::remove);
+        delta.deleted += unseen.size();
+
+        if (delta.inserted + delta.deleted > 0) {
+            collectionCacheEvictor.evict(Project.class, "commits", projectId);
+        }
+        return delta;
+    }
+
+    private Delta syncIssues(Long projectId, List<Issue> incoming, Delta commentDelta, StatsRollup stats) {
+        Map<Long, List<String>> labels = new HashMap<>();
+        project("select i.id, l from Project p join p.issues i join i.labels l where p.id = :project", projectId,
+                row -> labels.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]));
+        Map<String, Stored> byKey = new HashMap<>();
+        project("select i.id, i.title, i.createdAt, i.description, i.state, i.updatedAt, i.closedAt, i.votes, "
+                + "a.id, s.id from Project p join p.issues i left join i.author a left join i.assignee s "
+                + "where p.id = :project order by i.id", projectId, row -> {
+            Long id = (Long) row[0];
+            String state = (String) row[4];
+            byKey.putIfAbsent(ContentFingerprint.of((String) row[1], (Instant) row[2]), new Stored(id,
+                    issueHash((String) row[3], state, row[5], row[6], row[7], row[8], row[9], labels.remove(id)),
+                    state));
+        });
+        // comentarios de todas las issues guardadas, y cuantos tiene cada una para descontarlos si se borra
+        Map<Long, Map<String, Stored>> comments = new HashMap<>();
+        Map<Long, Long> commentCounts = new HashMap<>();
+        project("select i.id, c.id, c.body, c.createdAt, c.updatedAt, a.id from Project p join p.issues i "
+                + "join i.comments c left join c.author a where p.id = :project order by c.id", projectId, row -> {
+            Long issueId = (Long) row[0];
+            String body = (String) row[2];
+            comments.computeIfAbsent(issueId, id -> new HashMap<>()).putIfAbsent(
+                    ContentFingerprint.of(body, (Instant) row[3]),
+                    new Stored((Long) row[1], commentHash(body, row[4], row[5]), null));
+            commentCounts.merge(issueId, 1L, Long::sum);
+        });
+
+        Delta delta = new Delta();
+        Set<String> seen = new HashSet<>();
+        List<Long> inserted = new ArrayList<>();
+        Map<Long, Issue> changed = new HashMap<>();
+        for (Issue i : incoming) {
+            String key = ContentFingerprint.of(i.getTitle(), i.getCreatedAt());
+            if (!seen.add(key)) {
+                continue;
+            }
+            // una issue nueva se inserta con todos sus comentarios: sin repetidos, como en la ingesta
+            FingerprintDedup.comments(List.of(i));
+            List<Comment> issueComments = i.getComments() != null ? i.getComments() : Collections.emptyList();
+            Stored existing = byKey.get(key);
+            if (existing == null) {
+                for (Comment c : issueComments) {
+                    c.setId(null);
+                    entityManager.persist(c);
+                    commentDelta.inserted++;
+                }
+                i.setId(null);
+                entityManager.persist(i);
+                inserted.add(i.getId());
+                stats.issue(i.getState(), 1);
+                delta.inserted++;
+            } else {
+                if (!existing.hash.equals(issueHash(i.getDescription(), i.getState(), i.getUpdatedAt(),
+                        i.getClosedAt(), i.getVotes(), userId(i.getAuthor()), userId(i.getAssignee()),
+                        i.getLabels()))) {
+                    changed.put(existing.id, i);
+                }
+                syncComments(existing.id, comments.getOrDefault(existing.id, Collections.emptyMap()),
+                        issueComments, commentDelta);
+            }
+        }
+        link(Issue.class, "issue", "project_id", projectId, inserted);
+
+        for (Issue existing : load(Issue.class, changed.keySet())) {
+            String state = existing.getState();
+            if (copy(changed.get(existing.getId()), existing)) {
+                delta.updated++;
+                if (StatsRollup.CLOSED.equals(state) != StatsRollup.CLOSED.equals(existing.getState())) {
+                    stats.issue(state, -1);
+                    stats.issue(existing.getState(), 1);
+                }
+            }
+        }
+
+        // la issue se borra en cascada con sus comentarios y etiquetas
+        List<Long> unseen = unseen(byKey, seen, row -> {
+            stats.issue(row.stat, -1);
+            commentDelta.deleted += commentCounts.getOrDefault(row.id, 0L);
+        });
+        load(Issue.class, unseen).forEach(entityManager::remove);
+        delta.deleted += unseen.size();
+
+        if (delta.inserted + delta.deleted > 0) {
+            collectionCacheEvictor.evict(Project.class, "issues", projectId);
+        }
+        return delta;
+    }
+
+    private void syncComments(Long issueId, Map<String, Stored> byKey, List<Comment> incoming, Delta delta) {
+        long before = delta.inserted + delta.updated + delta.deleted;
+        Set<String> seen = new HashSet<>();
+        List<Long> inserted = new ArrayList<>();
+        Map<Long, Comment> changed = new HashMap<>();
+        for (Comment c : incoming) {
+            String key = ContentFingerprint.of(c.getBody(), c.getCreatedAt());
+            if (!seen.add(key)) {
+                continue;
+            }
+            Stored existing = byKey.get(key);
+            if (existing == null) {
+                c.setId(null);
+                entityManager.persist(c);
+                inserted.add(c.getId());
+                delta.inserted++;
+            } else if (!existing.hash.equals(commentHash(c.getBody(), c.getUpdatedAt(), userId(c.getAuthor())))) {
+                changed.put(existing.id, c);
+            }
+        }
+        link(Comment.class, "comment", "issue_id", issueId, inserted);
+        for (Comment existing : load(Comment.class, changed.keySet())) {
+            if (copy(changed.get(existing.getId()), existing)) {
+                delta.updated++;
+            }
+        }
+        List<Long> unseen = unseen(byKey, seen, row -> {});
+        load(Comment.class, unseen).forEach(entityManager::remove);
+        delta.deleted += unseen.size();
+
+        // la coleccion de la issue no se toca: su version y su cache se actualizan aqui
+        if (delta.inserted + delta.updated + delta.deleted > before) {
+            resourceVersions.touch(Issue.class, issueId);
+            collectionCacheEvictor.evict(Issue.class, "comments", issueId);
+        }
+    }
+
+    private boolean copy(Commit from, Commit to) {
+        boolean changed = update(to.getTitle(), from.getTitle(), to::setTitle);
+        changed |= update(to.getMessage(), from.getMessage(), to::setMessage);
+        changed |= update(to.getAuthorName(), from.getAuthorName(), to::setAuthorName);
+        changed |= update(to.getAuthorEmail(), from.getAuthorEmail(), to::setAuthorEmail);
+        changed |= update(to.getAuthoredDate(), from.getAuthoredDate(), to::setAuthoredDate);
+        return changed;
+    }
+
+    private boolean copy(Issue from, Issue to) {
+        boolean changed = update(to.getDescription(), from.getDescription(), to::setDescription);
+        changed |= update(to.getState(), from.getState(), to::setState);
+        changed |= update(to.getUpdatedAt(), from.getUpdatedAt(), to::setUpdatedAt);
+        changed |= update(to.getClosedAt(), from.getClosedAt(), to::setClosedAt);
+        changed |= update(to.getVotes(), from.getVotes(), to::setVotes);
+        changed |= updateUser(to.getAuthor(), from.getAuthor(), to::setAuthor);
+        changed |= updateUser(to.getAssignee(), from.getAssignee(), to::setAssignee);
+        List<String> labels = from.getLabels() != null ? from.getLabels() : Collections.emptyList();
+        if (!new ArrayList<>(labels).equals(to.getLabels() != null ? new ArrayList<>(to.getLabels()) : List.of())) {
+            to.setLabels(new ArrayList<>(labels));
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean copy(Comment from, Comment to) {
+        // el cuerpo normalizado forma parte de la clave, pero puede cambiar en espacios o saltos de linea
+        boolean changed = update(to.getBody(), from.getBody(), to::setBody);
+        changed |= update(to.getUpdatedAt(), from.getUpdatedAt(), to::setUpdatedAt);
+        changed |= updateUser(to.getAuthor(), from.getAuthor(), to::setAuthor);
+        return changed;
+    }
+
+    private static <T> boolean update(T current, T incoming, Consumer<T> setter) {
+        if (Objects.equals(current, incoming)) {
+            return false;
+        }
+        setter.accept(incoming);
+        return true;
+    }
+
+    // los usuarios ya vienen resueltos por UserResolver; se comparan por id sin inicializar proxies
+    private static boolean updateUser(User current, User incoming, Consumer<User> setter) {
+        Long currentId = current != null ? current.getId() : null;
+        Long incomingId = incoming != null ? incoming.getId() : null;
+        if (Objects.equals(currentId, incomingId)) {
+            return false;
+        }
+        setter.accept(incoming);
+        return true;
+    }
+
+    // proyeccion de las filas guardadas leida con un cursor: ninguna entidad entra en el contexto de persistencia
+    private void project(String jpql, Long projectId, Consumer<Object[]> onRow) {
+        try (Stream<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("project", projectId)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .getResultStream()) {
+            rows.forEach(onRow);
+        }
+    }
+
+    private <T> List<T> load(Class<T> type, Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<T> rows = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += BATCH) {
+            rows.addAll(entityManager.createQuery(
+                            "select e from " + type.getSimpleName() + " e where e.id in :ids", type)
+                    .setParameter("ids", all.subList(from, Math.min(from + BATCH, all.size())))
+                    .getResultList());
+        }
+        return rows;
+    }
+
+    // la relacion con el padre es unidireccional: la clave ajena de las altas se fija en una sola sentencia.
+    // Se declara la entidad afectada para que Hibernate no vacie toda la cache de segundo nivel.
+    private void link(Class<?> type, String table, String column, Long parentId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int from = 0; from < ids.size(); from += BATCH) {
+            entityManager.createNativeQuery("UPDATE " + table + " SET " + column + " = :parent WHERE id IN (:ids)")
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedEntityClass(type)
+                    .setParameter("parent", parentId)
+                    .setParameter("ids", ids.subList(from, Math.min(from + BATCH, ids.size())))
+                    .executeUpdate();
+        }
+    }
+
+    private static List<Long> unseen(Map<String, Stored> byKey, Set<String> seen, Consumer<Stored> onRemove) {
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<String, Stored> row : byKey.entrySet()) {
+            if (!seen.contains(row.getKey())) {
+                onRemove.accept(row.getValue());
+                ids.add(row.getValue().id);
+            }
+        }
+        return ids;
+    }
+
+    // commits sin web_url: titulo y fecha como clave de respaldo
+    private static String commitKey(String webUrl, String title, Instant authoredDate) {
+        return webUrl != null ? webUrl : title + '\u0000' + authoredDate;
+    }
+
+    // huellas de los mismos campos que comparan los copy(): si coinciden la fila no se carga
+    private static String commitHash(String title, String message, String authorName, String authorEmail,
+                                     Instant authoredDate) {
+        return ContentFingerprint.ofValues(title, message, authorName, authorEmail, authoredDate);
+    }
+
+    // etiquetas ordenadas: el orden en que las devuelve la base de datos no esta garantizado
+    private static String issueHash(String description, String state, Object updatedAt, Object closedAt,
+                                    Object votes, Object authorId, Object assigneeId, List<String> labels) {
+        List<String> sorted = labels != null ? new ArrayList<>(labels) : new ArrayList<>();
+        sorted.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+        return ContentFingerprint.ofValues(description, state, updatedAt, closedAt, votes, authorId, assigneeId,
+                sorted);
+    }
+
+    private static String commentHash(String body, Object updatedAt, Object authorId) {
+        return ContentFingerprint.ofValues(body, updatedAt, authorId);
+    }
+
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    // fila guardada reducida a lo que necesita el diff; stat es el autor del commit o el estado de la issue
+    private static class Stored {
+        final Long id;
+        final String hash;
+        final String stat;
+
+        Stored(Long id, String hash, String stat) {
+            this.id = id;
+            this.hash = hash;
+            this.stat = stat;
+        }
+    }
+
+    // filas insertadas, actualizadas y borradas de un tipo de entidad
+    private static class Delta {
+        long inserted;
+        long updated;
+        long deleted;
+
+        boolean changed() {
+            return inserted + updated + deleted > 0;
+        }
+
+        void record(IngestReport report, String entity, long nanos) {
+            report.record(entity + ".inserted", inserted, nanos);
+            report.record(entity + ".updated", updated, 0);
+            report.record(entity + ".deleted", deleted, 0);
+        }
+    }
+}
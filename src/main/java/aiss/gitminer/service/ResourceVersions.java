@@ -0,0 +1,31 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.Versioned;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+
+// Sube la version de un padre cuando cambia un hijo que no pasa por su coleccion (p.ej. al borrar un commit
+// directamente), para que su ETag deje de coincidir con el que tienen cacheado los clientes. Se llama siempre
+// desde la transaccion del cambio: si esta se deshace, la version tampoco sube
+@Service
+public class ResourceVersions {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void touch(Class<? extends Versioned> type, Long id) {
+        if (id == null) {
+            return;
+        }
+        Versioned entity = entityManager.find(type, id);
+        if (entity != null) {
+            entity.setLastModified(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.dto.SearchResults;
+import aiss.gitminer.exception.InvalidSearchQueryException;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Indice invertido de Lucene sobre Commit.title/message, Issue.title/description y Comment.body.
+// SearchIndexListener avisa de cada fila escrita o borrada y el indice se actualiza al confirmar la transaccion
+// que la toca, asi un rollback nunca deja documentos en el indice. Durante la transaccion solo se guarda
+// (tipo, id); el texto se relee de la base de datos por bloques tras el commit y las filas que ya no estan se
+// borran. Es un dato derivado: SearchIndexRebuilder lo reconstruye desde la base de datos.
+@Component
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    public static final String COMMIT = "commit";
+    public static final String ISSUE = "issue";
+    public static final String COMMENT = "comment";
+    public static final Set<String> TYPES = Set.of(COMMIT, ISSUE, COMMENT);
+
+    // id y dos columnas de texto de cada tipo; la comparten la relectura tras el commit y la reconstruccion
+    static final Map<String, String> SELECTS = Map.of(
+            COMMIT, "SELECT id, title, message FROM commit",
+            ISSUE, "SELECT id, title, description FROM issue",
+            COMMENT, "SELECT id, body, NULL FROM comment");
+
+    // ids por consulta al releer las filas tocadas por una transaccion
+    static final int RELOAD_BATCH = 1_000;
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String TEXT = "text";
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    // se reabren si una reconstruccion falla; search y size trabajan con el SearcherManager que leen al entrar
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // filas tocadas por transacciones confirmadas durante una reconstruccion: se releen y escriben al terminarla,
+    // encima de la foto de la base de datos, y mientras tanto nadie publica un indice a medio rellenar.
+    // Protegido por this.
+    private Map<String, Set<Long>> deferred;
+
+    // sin directorio el indice vive en memoria, como la base de datos H2 por defecto
+    public SearchIndex(@Value("${gitminer.search.index-dir:}") String indexDir) throws IOException {
+        this.directory = indexDir.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(indexDir));
+        open();
+    }
+
+    private void open() throws IOException {
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    // documento a escribir (text != null) o a borrar (text == null)
+    static class Change {
+        final String type;
+        final long id;
+        final String text;
+
+        Change(String type, long id, String text) {
+            this.type = type;
+            this.id = id;
+            this.text = text;
+        }
+
+        static String join(String... parts) {
+            StringJoiner text = new StringJoiner("\n");
+            for (String part : parts) {
+                if (part != null) {
+                    text.add(part);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    // dentro de una transaccion se acumulan los ids tocados y se actualizan todos juntos tras el commit
+    @SuppressWarnings("unchecked")
+    void enqueue(Object entity) {
+        String type;
+        Long id;
+        if (entity instanceof Commit) {
+            type = COMMIT;
+            id = ((Commit) entity).getId();
+        } else if (entity instanceof Issue) {
+            type = ISSUE;
+            id = ((Issue) entity).getId();
+        } else {
+            type = COMMENT;
+            id = ((Comment) entity).getId();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(type, Set.of(id)));
+            return;
+        }
+        Map<String, Set<Long>> pending = (Map<String, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Set<Long>> touched = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, touched);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(SearchIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(touched);
+                    }
+                }
+            });
+            pending = touched;
+        }
+        pending.computeIfAbsent(type, t -> new HashSet<>()).add(id);
+    }
+
+    // un fallo del indice no deshace una escritura ya confirmada: se avisa y se corrige reconstruyendolo.
+    // La relectura va dentro del lock: la ultima en aplicarse ve el ultimo estado confirmado de cada fila.
+    synchronized void apply(Map<String, Set<Long>> touched) {
+        if (deferred != null) {
+            touched.forEach((type, ids) -> deferred.computeIfAbsent(type, t -> new HashSet<>()).addAll(ids));
+            return;
+        }
+        try {
+            write(touched);
+            publish();
+        } catch (IOException | DataAccessException e) {
+            log.warn("Could not update the search index with {} changes; rebuild it with gitminer.search.rebuild=true",
+                    touched.values().stream().mapToInt(Set::size).sum(), e);
+        }
+    }
+
+    public SearchResults search(String q, Set<String> types, int page, int size)
+            throws InvalidSearchQueryException, IOException {
+        Query text;
+        try {
+            text = new QueryParser(TEXT, analyzer).parse(q);
+        } catch (ParseException e) {
+            throw new InvalidSearchQueryException();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(text, BooleanClause.Occur.MUST);
+        if (!types.isEmpty()) {
+            // filtro sin puntuacion: no cambia el ranking, solo descarta tipos
+            BooleanQuery.Builder typeFilter = new BooleanQuery.Builder();
+            for (String type : types) {
+                typeFilter.add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.SHOULD);
+            }
+            query.add(typeFilter.build(), BooleanClause.Occur.FILTER);
+        }
+
+        SearcherManager manager = searcherManager;
+        IndexSearcher searcher = manager.acquire();
+        try {
+            TopDocs top = searcher.search(query.build(), (page + 1) * size);
+            List<SearchResults.Hit> hits = new ArrayList<>();
+            for (int i = page * size; i < top.scoreDocs.length; i++) {
+                Document doc = searcher.doc(top.scoreDocs[i].doc);
+                hits.add(new SearchResults.Hit(doc.get(TYPE), doc.getField(ID).numericValue().longValue(),
+                        top.scoreDocs[i].score));
+            }
+            return new SearchResults(top.totalHits.value, hits);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    // reconstruccion completa por bloques desde SearchIndexRebuilder: startRebuild, add..., finishRebuild, o
+    // abortRebuild si algo falla. Los lectores siguen viendo el indice anterior hasta finishRebuild, que es el
+    // unico commit.
+    synchronized void startRebuild() throws IOException {
+        if (deferred != null) {
+            throw new IllegalStateException("The search index is already being rebuilt");
+        }
+        deferred = new HashMap<>();
+        writer.deleteAll();
+    }
+
+    void add(List<Change> changes) throws IOException {
+        for (Change change : changes) {
+            writer.addDocument(document(change));
+        }
+    }
+
+    synchronized void finishRebuild() throws IOException {
+        write(deferred);
+        publish();
+        deferred = null;
+    }
+
+    // descarta la reconstruccion sin publicarla: rollback vuelve al ultimo commit (el indice anterior) y cierra
+    // el writer, asi que se reabren writer y searcher. Las filas tocadas mientras tanto se aplican encima.
+    synchronized void abortRebuild() throws IOException {
+        SearcherManager stale = searcherManager;
+        try {
+            writer.rollback();
+            open();
+            stale.close();
+            write(deferred);
+            publish();
+        } finally {
+            deferred = null;
+        }
+    }
+
+    // relee por bloques el texto de las filas tocadas; las que ya no existen se borran del indice
+    private void write(Map<String, Set<Long>> touched) throws IOException {
+        for (Map.Entry<String, Set<Long>> entry : touched.entrySet()) {
+            String type = entry.getKey();
+            List<Long> ids = new ArrayList<>(entry.getValue());
+            for (int from = 0; from < ids.size(); from += RELOAD_BATCH) {
+                List<Long> batch = ids.subList(from, Math.min(from + RELOAD_BATCH, ids.size()));
+                Set<Long> missing = new HashSet<>(batch);
+                List<Change> rows = jdbcTemplate.query(SELECTS.get(type) + " WHERE id IN ("
+                                + String.join(",", Collections.nCopies(batch.size(), "?")) + ")",
+                        (rs, n) -> new Change(type, rs.getLong(1), Change.join(rs.getString(2), rs.getString(3))),
+                        batch.toArray());
+                for (Change row : rows) {
+                    missing.remove(row.id);
+                    writer.updateDocument(key(type, row.id), document(row));
+                }
+                for (Long id : missing) {
+                    writer.deleteDocuments(key(type, id));
+                }
+            }
+        }
+    }
+
+    private static Term key(String type, long id) {
+        return new Term(KEY, type + ':' + id);
+    }
+
+    private void publish() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    public int size() throws IOException {
+        SearcherManager manager = searcherManager;
+        IndexSearcher searcher = manager.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Document document(Change change) {
+        Document doc = new Document();
+        doc.add(new StringField(KEY, key(change.type, change.id).text(), Field.Store.NO));
+        doc.add(new StringField(TYPE, change.type, Field.Store.YES));
+        doc.add(new StoredField(ID, change.id));
+        doc.add(new TextField(TEXT, change.text, Field.Store.NO));
+        return doc;
+    }
+}
@@ -0,0 +1,27 @@
+package aiss.gitminer.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Mantiene el indice de busqueda desde cualquier escritura JPA de commits, issues y comentarios:
+// endpoints, ingestas, re-sincronizacion y borrados en cascada de un proyecto.
+// El indice se pide al escribir: en los tests de solo JPA (@DataJpaTest) no existe y no se indexa nada.
+@Component
+public class SearchIndexListener {
+
+    @Autowired
+    ObjectProvider<SearchIndex> searchIndex;
+
+    // alta, cambio o borrado: el indice relee la fila al confirmar y decide si escribirla o quitarla
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void touched(Object entity) {
+        searchIndex.ifAvailable(index -> index.enqueue(entity));
+    }
+}
@@ -0,0 +1,97 @@
+package aiss.gitminer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reconstruye el indice de busqueda desde la base de datos leyendo por bloques de id (sin cargar entidades).
+// Se ejecuta al arrancar si el indice esta vacio o con gitminer.search.rebuild=true. Sin servidor web
+// (spring.main.web-application-type=none) la aplicacion termina al acabar: reconstruccion offline.
+@Component
+public class SearchIndexRebuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexRebuilder.class);
+
+    static final int BATCH_SIZE = 5_000;
+
+    @Autowired
+    SearchIndex searchIndex;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${gitminer.search.rebuild:false}")
+    boolean rebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup(ApplicationReadyEvent event) throws IOException {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        if (rebuild || searchIndex.size() == 0 && hasDocuments()) {
+            rebuild();
+        }
+        if (rebuild && !(context instanceof WebServerApplicationContext)) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    public long rebuild() throws IOException {
+        long start = System.nanoTime();
+        long documents;
+        // las escrituras que se confirman mientras tanto se aplican en finishRebuild, tras la foto
+        searchIndex.startRebuild();
+        try {
+            documents = add(SearchIndex.COMMIT);
+            documents += add(SearchIndex.ISSUE);
+            documents += add(SearchIndex.COMMENT);
+            searchIndex.finishRebuild();
+        } catch (IOException | RuntimeException e) {
+            // un indice a medio rellenar no se publica: se vuelve al anterior
+            try {
+                searchIndex.abortRebuild();
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        log.info("Rebuilt the search index with {} documents in {} ms", documents,
+                (System.nanoTime() - start) / 1_000_000);
+        return documents;
+    }
+
+    private boolean hasDocuments() {
+        return jdbcTemplate.queryForObject("SELECT (SELECT COUNT(*) FROM commit) + (SELECT COUNT(*) FROM issue)"
+                + " + (SELECT COUNT(*) FROM comment)", Long.class) > 0;
+    }
+
+    // paginacion por clave: cada bloque empieza despues del ultimo id leido
+    private long add(String type) throws IOException {
+        String select = SearchIndex.SELECTS.get(type);
+        long documents = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<SearchIndex.Change> batch = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query(select + " WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE, rs -> {
+                batch.add(new SearchIndex.Change(type, rs.getLong(1),
+                        SearchIndex.Change.join(rs.getString(2), rs.getString(3))));
+            }, lastId);
+            if (batch.isEmpty()) {
+                return documents;
+            }
+            searchIndex.add(batch);
+            documents += batch.size();
+            lastId = batch.get(batch.size() - 1).id;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Contadores de los commits e issues escritos por una ingesta, para insertar la fila de estadisticas al final.
+// En una re-sincronizacion son deltas y pueden ser negativos.
+class StatsRollup {
+
+    static final String CLOSED = "closed";
+
+    long commits;
+    long openIssues;
+    long closedIssues;
+    long comments;
+    final Map<String, Long> authors = new HashMap<>();
+
+    void add(Commit commit) {
+        commits++;
+        if (commit.getAuthorName() != null) {
+            authors.merge(commit.getAuthorName(), 1L, Long::sum);
+        }
+    }
+
+    void commit(String authorName, long delta) {
+        commits += delta;
+        author(authorName, delta);
+    }
+
+    void author(String authorName, long delta) {
+        if (authorName != null) {
+            authors.merge(authorName, delta, Long::sum);
+        }
+    }
+
+    void issue(String state, long delta) {
+        if (CLOSED.equals(state)) {
+            closedIssues += delta;
+        } else {
+            openIssues += delta;
+        }
+    }
+
+    void add(Issue issue) {
+        if (CLOSED.equals(issue.getState())) {
+            closedIssues++;
+        } else {
+            openIssues++;
+        }
+        if (issue.getComments() != null) {
+            comments += issue.getComments().size();
+        }
+    }
+}
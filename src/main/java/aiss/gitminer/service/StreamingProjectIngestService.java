@@ -0,0 +1,362 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.exception.InvalidProjectPayloadException;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.repository.ProjectRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Ingesta de un proyecto leyendo el JSON con la API de tokens de Jackson, sin construir el grafo completo.
+// Commits e issues (con sus comentarios) se escriben en bloques de chunkSize, se limpia el contexto de
+// persistencia tras cada bloque (con open-in-view el EntityManager es el de la peticion) y cada bloque se
+// confirma en su propia transaccion: Hibernate guarda cada insercion de una entidad cacheada hasta el commit
+// aunque se limpie el contexto, asi que con una sola transaccion volveria a tener el documento entero en
+// memoria. Si la ingesta falla a medias, lo ya confirmado se borra tambien por bloques.
+@Service
+public class StreamingProjectIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingProjectIngestService.class);
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    UserResolver userResolver;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    IngestMetrics ingestMetrics;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @Autowired
+    CollectionCacheEvictor collectionCacheEvictor;
+
+    @Autowired
+    ProjectNameLocks projectNameLocks;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${gitminer.ingest.chunk-size:500}")
+    int chunkSize;
+
+    public Project ingest(InputStream body, IngestReport report) throws IOException, InvalidProjectPayloadException {
+        Ingest ingest = new Ingest(report);
+        boolean finished = false;
+        try {
+            Project project = read(body, ingest);
+            finished = true;
+            return project;
+        } finally {
+            if (!finished) {
+                discard(ingest);
+            }
+            if (ingest.lockedName != null) {
+                projectNameLocks.unlock(ingest.lockedName);
+            }
+        }
+    }
+
+    private Project read(InputStream body, Ingest ingest) throws IOException, InvalidProjectPayloadException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidProjectPayloadException("The project must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name":
+                        ingest.name = parser.getValueAsString();
+                        // como POST /projects, las ingestas de un mismo nombre van de una en una; el lock se
+                        // toma en cuanto se conoce el nombre y dura hasta el final, tambien si llega tras los arrays
+                        if (ingest.lockedName == null && ingest.name != null) {
+                            projectNameLocks.lock(ingest.name);
+                            ingest.lockedName = ingest.name;
+                        }
+                        // mismo comportamiento que POST /projects: si ya existe se devuelve sin leer el resto
+                        if (ingest.projectId == null && ingest.name != null) {
+                            Project existing = projectRepository.findByName(ingest.name);
+                            if (existing != null) {
+                                return existing;
+                            }
+                        }
+                        break;
+                    case "web_url":
+                        ingest.webUrl = parser.getValueAsString();
+                        break;
+                    case "commits":
+                        readArray(parser, objectMapper.readerFor(Commit.class), ingest, this::writeCommits);
+                        break;
+                    case "issues":
+                        readArray(parser, objectMapper.readerFor(Issue.class), ingest, this::writeIssues);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        if (ingest.name == null || ingest.name.isEmpty()) {
+            throw new InvalidProjectPayloadException("The name of the project cannot be empty");
+        }
+        if (ingest.webUrl == null || ingest.webUrl.isEmpty()) {
+            throw new InvalidProjectPayloadException("The URL of the project cannot be empty");
+        }
+        Project project = new TransactionTemplate(transactionManager).execute(status -> finish(ingest));
+        if (project == null) {
+            // el nombre llego despues de los arrays y ya existe: se descarta todo lo escrito
+            discard(ingest);
+            return projectRepository.findByName(ingest.name);
+        }
+        return project;
+    }
+
+    private <T> void readArray(JsonParser parser, ObjectReader reader, Ingest ingest, ChunkWriter<T> writer)
+            throws IOException, InvalidProjectPayloadException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new InvalidProjectPayloadException("Expected an array at '" + parser.getCurrentName() + "'");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> createProject(ingest));
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            chunk.add(reader.readValue(parser));
+            if (chunk.size() == chunkSize) {
+                transaction.executeWithoutResult(status -> writer.write(ingest, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            transaction.executeWithoutResult(status -> writer.write(ingest, chunk));
+        }
+    }
+
+    // el proyecto se inserta al empezar el primer array para poder enlazar cada bloque con su id. Si web_url
+    // aun no ha llegado la columna queda a null hasta finish; la validacion de la entidad no lo permitiria,
+    // asi que la fila se inserta a mano con un id del mismo generador que usa Hibernate.
+    private void createProject(Ingest ingest) {
+        if (ingest.projectId != null) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Long id = (Long) session.getFactory().getMetamodel().entityPersister(Project.class)
+                .getIdentifierGenerator().generate(session, null);
+        entityManager.createNativeQuery("INSERT INTO project (id, name, web_url, version) VALUES (:id, :name, :url, 0)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Project.class)
+                .setParameter("id", id)
+                .setParameter("name", ingest.name != null ? ingest.name : "ingest-" + UUID.randomUUID())
+                .setParameter("url", ingest.webUrl)
+                .executeUpdate();
+        ingest.projectId = id;
+    }
+
+    private void writeCommits(Ingest ingest, List<Commit> commits) {
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(commits.size());
+        for (Commit c : commits) {
+            c.setId(null);
+            entityManager.persist(c);
+            ids.add(c.getId());
+            ingest.stats.add(c);
+        }
+        entityManager.flush();
+        link(Commit.class, "commit", ingest.projectId, ids);
+        entityManager.clear();
+        ingest.commits += commits.size();
+        ingest.commitNanos += System.nanoTime() - start;
+    }
+
+    private void writeIssues(Ingest ingest, List<Issue> issues) {
+        long start = System.nanoTime();
+        ingest.duplicates += FingerprintDedup.issues(issues, storedFingerprints(ingest.projectId, issues))
+                + FingerprintDedup.comments(issues);
+        ingest.users += userResolver.resolve(issues);
+        List<Long> ids = new ArrayList<>(issues.size());
+        for (Issue i : issues) {
+            if (i.getComments() != null) {
+                for (Comment c : i.getComments()) {
+                    c.setId(null);
+                    entityManager.persist(c);
+                    ingest.comments++;
+                }
+            }
+            i.setId(null);
+            entityManager.persist(i);
+            ids.add(i.getId());
+            ingest.stats.add(i);
+            if (i.getLabels() != null) {
+                ingest.labels += i.getLabels().size();
+            }
+        }
+        entityManager.flush();
+        link(Issue.class, "issue", ingest.projectId, ids);
+        entityManager.clear();
+        ingest.issues += issues.size();
+        ingest.issueNanos += System.nanoTime() - start;
+    }
+
+    // huellas de las issues de este bloque que ya escribio un bloque anterior; no se guardan todas en memoria
+    private Set<String> storedFingerprints(Long projectId, List<Issue> issues) {
+        List<String> fingerprints = new ArrayList<>(issues.size());
+        for (Issue i : issues) {
+            fingerprints.add(FingerprintDedup.of(i));
+        }
+        List<?> stored = entityManager.createNativeQuery(
+                        "SELECT fingerprint FROM issue WHERE project_id = :project AND fingerprint IN (:fingerprints)")
+                .setParameter("project", projectId)
+                .setParameter("fingerprints", fingerprints)
+                .getResultList();
+        Set<String> seen = new HashSet<>();
+        for (Object fingerprint : stored) {
+            seen.add((String) fingerprint);
+        }
+        return seen;
+    }
+
+    // la relacion proyecto -> commits/issues es unidireccional; la clave ajena se fija aqui en una sola sentencia.
+    // Se declara la entidad afectada para que Hibernate no vacie toda la cache de segundo nivel.
+    private void link(Class<?> type, String table, Long projectId, List<Long> ids) {
+        entityManager.createNativeQuery("UPDATE " + table + " SET project_id = :project WHERE id IN (:ids)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(type)
+                .setParameter("project", projectId)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // null si el nombre ya lo tiene otro proyecto
+    private Project finish(Ingest ingest) {
+        if (ingest.projectId == null) {
+            createProject(ingest);
+        }
+        Project project = entityManager.find(Project.class, ingest.projectId);
+        if (!ingest.name.equals(project.getName())) {
+            if (projectRepository.findByName(ingest.name) != null) {
+                return null;
+            }
+            project.setName(ingest.name);
+        }
+        project.setWebUrl(ingest.webUrl);
+        // los contadores se acumulan bloque a bloque y se insertan una sola vez
+        projectStatsService.insert(project.getId(), ingest.stats);
+        entityManager.flush();
+
+        IngestReport report = ingest.report;
+        report.record("users", ingest.users, 0);
+        report.record("commits", ingest.commits, ingest.commitNanos);
+        // comentarios y etiquetas se escriben en los mismos bloques que sus issues
+        report.record("issues", ingest.issues, ingest.issueNanos);
+        report.record("comments", ingest.comments, 0);
+        report.record("labels", ingest.labels, 0);
+        report.record("project", 1, 0);
+        if (ingest.duplicates > 0) {
+            log.info("Skipped {} duplicate issues and comments in project '{}'", ingest.duplicates, project.getName());
+        }
+        log.info("Stream-ingested project '{}' in chunks of {}: {}", project.getName(), chunkSize, report);
+        ingestMetrics.record(report);
+        return project;
+    }
+
+    // deshace una ingesta a medias. Los bloques ya estan confirmados: se borran de nuevo por bloques y con JPA,
+    // para que el indice de busqueda y la cache de segundo nivel se enteren. Los usuarios creados se quedan,
+    // igual que los que deja cualquier borrado de issues o comentarios.
+    private void discard(Ingest ingest) {
+        if (ingest.projectId == null) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            discardChunks(transaction, Commit.class, "commit", ingest.projectId);
+            discardChunks(transaction, Issue.class, "issue", ingest.projectId);
+            collectionCacheEvictor.evict(Project.class, "commits", ingest.projectId);
+            collectionCacheEvictor.evict(Project.class, "issues", ingest.projectId);
+            transaction.executeWithoutResult(status -> {
+                Project project = entityManager.find(Project.class, ingest.projectId);
+                if (project != null) {
+                    entityManager.remove(project);
+                }
+                projectStatsService.delete(ingest.projectId);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not discard partially ingested project {}", ingest.projectId, e);
+        }
+    }
+
+    private void discardChunks(TransactionTemplate transaction, Class<?> type, String table, Long projectId) {
+        boolean more = true;
+        while (more) {
+            more = Boolean.TRUE.equals(transaction.execute(status -> {
+                List<?> ids = entityManager.createNativeQuery(
+                                "SELECT id FROM " + table + " WHERE project_id = :project ORDER BY id")
+                        .setParameter("project", projectId)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                for (Object id : ids) {
+                    entityManager.remove(entityManager.find(type, ((Number) id).longValue()));
+                }
+                return ids.size() == chunkSize;
+            }));
+        }
+    }
+
+    private interface ChunkWriter<T> {
+        void write(Ingest ingest, List<T> chunk);
+    }
+
+    // estado de una ingesta en curso
+    private static class Ingest {
+        final IngestReport report;
+        final StatsRollup stats = new StatsRollup();
+        String name;
+        String webUrl;
+        Long projectId;
+        String lockedName;
+        long users;
+        long commits;
+        long commitNanos;
+        long issues;
+        long issueNanos;
+        long comments;
+        long labels;
+        long duplicates;
+
+        Ingest(IngestReport report) {
+            this.report = report;
+        }
+    }
+}
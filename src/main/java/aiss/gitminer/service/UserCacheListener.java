@@ -0,0 +1,23 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Invalida la cache de identidades cuando se modifica o borra un usuario.
+// Hibernate obtiene el listener del contexto de Spring, por eso admite @Autowired.
+@Component
+public class UserCacheListener {
+
+    @Autowired
+    UserIdentityCache userIdentityCache;
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(User user) {
+        userIdentityCache.invalidate(user.getId());
+    }
+}
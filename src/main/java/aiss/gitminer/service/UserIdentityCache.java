@@ -0,0 +1,109 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Cache acotada en memoria de username / webUrl -> id de usuario, compartida por todas las ingestas.
+// Solo guarda ids ya confirmados: dentro de una transaccion las altas se publican tras el commit,
+// asi una ingesta que hace rollback nunca deja ids inexistentes en la cache.
+@Component
+public class UserIdentityCache implements MeterBinder {
+
+    private final Cache<String, Long> byUsername;
+    private final Cache<String, Long> byWebUrl;
+
+    private volatile boolean enabled;
+
+    public UserIdentityCache(@Value("${gitminer.user-cache.max-size:10000}") long maxSize,
+                             @Value("${gitminer.user-cache.enabled:true}") boolean enabled) {
+        this.byUsername = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.byWebUrl = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.enabled = enabled;
+    }
+
+    public Long idByUsername(String username) {
+        return enabled && username != null ? byUsername.getIfPresent(username) : null;
+    }
+
+    public Long idByWebUrl(String webUrl) {
+        return enabled && webUrl != null ? byWebUrl.getIfPresent(webUrl) : null;
+    }
+
+    // registra un usuario leido de la base de datos o, dentro de una transaccion, al confirmarla
+    public void put(User user) {
+        if (!enabled || user == null || user.getId() == null) {
+            return;
+        }
+        Long id = user.getId();
+        String username = user.getUsername();
+        String webUrl = user.getWebUrl();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(id, username, webUrl);
+                }
+            });
+        } else {
+            put(id, username, webUrl);
+        }
+    }
+
+    // elimina todas las claves que apuntan al usuario (el username o la webUrl pueden haber cambiado)
+    public void invalidate(Long id) {
+        if (id != null) {
+            byUsername.asMap().values().removeIf(id::equals);
+            byWebUrl.asMap().values().removeIf(id::equals);
+        }
+    }
+
+    public void invalidateAll() {
+        byUsername.invalidateAll();
+        byWebUrl.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+
+    // cache.gets (hit/miss), cache.evictions y cache.size de cada clave
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byUsername, "gitminer.users.by-username");
+        CaffeineCacheMetrics.monitor(registry, byWebUrl, "gitminer.users.by-web-url");
+    }
+
+    public long size() {
+        return byUsername.estimatedSize();
+    }
+
+    // aciertos, fallos y desalojos de las dos claves sumados
+    public CacheStats stats() {
+        return byUsername.stats().plus(byWebUrl.stats());
+    }
+
+    private void put(Long id, String username, String webUrl) {
+        if (username != null) {
+            byUsername.put(username, id);
+        }
+        if (webUrl != null) {
+            byWebUrl.put(webUrl, id);
+        }
+    }
+}
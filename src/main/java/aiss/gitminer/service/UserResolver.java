@@ -0,0 +1,171 @@
+package aiss.gitminer.service;
+
+import aiss.gitminer.exception.UnidentifiedUserException;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.User;
+import aiss.gitminer.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.function.Function;
+
+// Las relaciones con User no tienen cascada: antes de guardar issues o comentarios cada autor y asignado se
+// sustituye por la fila canonica de gmuser, identificada por webUrl o, si no la hay, por username (los dos son
+// unicos). Un usuario sin ninguno de los dos se rechaza con UnidentifiedUserException.
+// Los usuarios que estan en la cache se enlazan por referencia, sin SELECT; los que no existen se insertan.
+@Service
+public class UserResolver {
+
+    // tamaño maximo de las listas IN al buscar usuarios existentes
+    static final int LOOKUP_CHUNK_SIZE = 500;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserIdentityCache userIdentityCache;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    // issues con sus comentarios; devuelve el numero de usuarios nuevos insertados
+    @Transactional
+    public long resolve(List<Issue> issues) {
+        return resolve(issues, Collections.emptyList());
+    }
+
+    @Transactional
+    public long resolve(Comment comment) {
+        return resolve(Collections.emptyList(), List.of(comment));
+    }
+
+    private long resolve(List<Issue> issues, List<Comment> comments) {
+        Map<String, User> incoming = new LinkedHashMap<>();
+        for (Issue i : issues) {
+            collect(incoming, i.getAuthor());
+            collect(incoming, i.getAssignee());
+            if (i.getComments() != null) {
+                for (Comment c : i.getComments()) {
+                    collect(incoming, c.getAuthor());
+                }
+            }
+        }
+        for (Comment c : comments) {
+            collect(incoming, c.getAuthor());
+        }
+
+        Map<String, User> resolved = new HashMap<>();
+        List<String> webUrls = new ArrayList<>();
+        for (Map.Entry<String, User> entry : incoming.entrySet()) {
+            User u = entry.getValue();
+            Long id = u.getWebUrl() != null
+                    ? userIdentityCache.idByWebUrl(u.getWebUrl())
+                    : userIdentityCache.idByUsername(u.getUsername());
+            if (id != null) {
+                resolved.put(entry.getKey(), entityManager.getReference(User.class, id));
+            } else if (u.getWebUrl() != null) {
+                webUrls.add(u.getWebUrl());
+            }
+        }
+        lookup(webUrls, userRepository::findByWebUrlIn, u -> List.of(webUrlKey(u.getWebUrl())), resolved);
+
+        // username tambien es unico: un usuario que no se encuentra por webUrl puede existir con otra webUrl,
+        // y varios usuarios entrantes con el mismo username son la misma fila aunque traigan webUrl distintas
+        Map<String, List<String>> keysByUsername = new HashMap<>();
+        for (Map.Entry<String, User> entry : incoming.entrySet()) {
+            if (!resolved.containsKey(entry.getKey()) && entry.getValue().getUsername() != null) {
+                keysByUsername.computeIfAbsent(entry.getValue().getUsername(), k -> new ArrayList<>())
+                        .add(entry.getKey());
+            }
+        }
+        lookup(new ArrayList<>(keysByUsername.keySet()), userRepository::findByUsernameIn,
+                u -> keysByUsername.get(u.getUsername()), resolved);
+
+        long inserted = 0;
+        Map<String, User> insertedByUsername = new HashMap<>();
+        for (Map.Entry<String, User> entry : incoming.entrySet()) {
+            if (!resolved.containsKey(entry.getKey())) {
+                User u = entry.getValue();
+                User newUser = u.getUsername() != null ? insertedByUsername.get(u.getUsername()) : null;
+                if (newUser == null) {
+                    newUser = new User(u.getUsername(), u.getName(), u.getAvatarUrl(), u.getWebUrl());
+                    entityManager.persist(newUser);
+                    // el id de secuencia ya esta asignado; la cache lo publica tras el commit
+                    userIdentityCache.put(newUser);
+                    if (u.getUsername() != null) {
+                        insertedByUsername.put(u.getUsername(), newUser);
+                    }
+                    inserted++;
+                }
+                resolved.put(entry.getKey(), newUser);
+            }
+        }
+
+        for (Issue i : issues) {
+            i.setAuthor(canonical(resolved, i.getAuthor()));
+            i.setAssignee(canonical(resolved, i.getAssignee()));
+            if (i.getComments() != null) {
+                for (Comment c : i.getComments()) {
+                    c.setAuthor(canonical(resolved, c.getAuthor()));
+                }
+            }
+        }
+        for (Comment c : comments) {
+            c.setAuthor(canonical(resolved, c.getAuthor()));
+        }
+        return inserted;
+    }
+
+    private void lookup(List<String> keys, Function<List<String>, List<User>> finder,
+                        Function<User, List<String>> incomingKeys, Map<String, User> resolved) {
+        for (int from = 0; from < keys.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, keys.size()));
+            for (User u : finder.apply(chunk)) {
+                for (String key : incomingKeys.apply(u)) {
+                    resolved.put(key, u);
+                }
+                userIdentityCache.put(u);
+            }
+        }
+    }
+
+    // un usuario sin webUrl ni username no se puede identificar: se rechaza antes de escribir nada
+    private void collect(Map<String, User> incoming, User user) {
+        if (user == null) {
+            return;
+        }
+        String key = key(user);
+        if (key == null) {
+            throw new UnidentifiedUserException("User without web_url or username: " + user.getName());
+        }
+        incoming.putIfAbsent(key, user);
+    }
+
+    private User canonical(Map<String, User> resolved, User user) {
+        String key = key(user);
+        return key != null ? resolved.get(key) : null;
+    }
+
+    private static String key(User user) {
+        if (user == null) {
+            return null;
+        }
+        if (user.getWebUrl() != null) {
+            return webUrlKey(user.getWebUrl());
+        }
+        return user.getUsername() != null ? usernameKey(user.getUsername()) : null;
+    }
+
+    private static String webUrlKey(String webUrl) {
+        return "web_url:" + webUrl;
+    }
+
+    private static String usernameKey(String username) {
+        return "username:" + username;
+    }
+}
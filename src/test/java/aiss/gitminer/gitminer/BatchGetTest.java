@@ -0,0 +1,77 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET ?ids= y POST /batch-get: orden de la peticion, ids inexistentes en missing y limite de ids
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "gitminer.batch-get.max-ids=5"})
+@AutoConfigureMockMvc
+class BatchGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void keepsRequestOrderAndReportsMissingIds() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(51, 5).project("batch-get", 3, 0, 0), new IngestReport());
+        long first = project.getCommits().get(0).getId();
+        long last = project.getCommits().get(2).getId();
+
+        JsonNode result = objectMapper.readTree(mockMvc.perform(
+                        get("/gitminer/commits?ids=" + last + ",-1," + first + "," + last))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(result.get("items")).hasSize(2);
+        assertThat(result.get("items").get(0).get("id").asLong()).isEqualTo(last);
+        assertThat(result.get("items").get(1).get("id").asLong()).isEqualTo(first);
+        assertThat(result.get("missing").toString()).isEqualTo("[-1]");
+    }
+
+    @Test
+    void postVariantTakesTheIdsInTheBody() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(52, 5).project("batch-get-post", 0, 2, 1), new IngestReport());
+        long issue = project.getIssues().get(1).getId();
+
+        JsonNode result = objectMapper.readTree(mockMvc.perform(post("/gitminer/issues/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + issue + ", -2]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(result.get("items").get(0).get("id").asLong()).isEqualTo(issue);
+        assertThat(result.get("missing").toString()).isEqualTo("[-2]");
+    }
+
+    @Test
+    void tooManyIdsIsABadRequest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 6).mapToObj(Long::toString).collect(Collectors.joining(","));
+        mockMvc.perform(get("/gitminer/users?ids=" + ids)).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,123 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.ProjectSyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// ETag / If-None-Match en los GET de proyectos, commits y comentarios de una issue, tambien tras borrar
+// hijos y tras un re-minado que los edita en el sitio
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ProjectSyncService projectSyncService;
+
+    @Test
+    void unchangedResourcesAnswerNotModified() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(21, 10).project("etag-unchanged", 5, 3, 2), new IngestReport());
+        String[] urls = {
+                "/gitminer/projects/" + project.getId(),
+                "/gitminer/commits/" + project.getCommits().get(0).getId(),
+                "/gitminer/issues/" + project.getIssues().get(0).getId() + "/comments"};
+
+        for (String url : urls) {
+            String etag = etag(url);
+            mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Test
+    void deletingAChildChangesTheParentEtag() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(22, 10).project("etag-delete", 5, 3, 2), new IngestReport());
+        String projectUrl = "/gitminer/projects/" + project.getId();
+        String commentsUrl = "/gitminer/issues/" + project.getIssues().get(0).getId() + "/comments";
+        String projectEtag = etag(projectUrl);
+        String commentsEtag = etag(commentsUrl);
+
+        mockMvc.perform(delete("/gitminer/comments/" + project.getIssues().get(0).getComments().get(0).getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(projectUrl).header(HttpHeaders.IF_NONE_MATCH, projectEtag)).andExpect(status().isOk());
+        mockMvc.perform(get(commentsUrl).header(HttpHeaders.IF_NONE_MATCH, commentsEtag)).andExpect(status().isOk());
+        assertThat(etag(projectUrl)).isNotEqualTo(projectEtag);
+
+        // borrar un commit o una issue tambien cambia el ETag del proyecto
+        String beforeCommit = etag(projectUrl);
+        mockMvc.perform(delete("/gitminer/commits/" + project.getCommits().get(0).getId()))
+                .andExpect(status().isNoContent());
+        String afterCommit = etag(projectUrl);
+        assertThat(afterCommit).isNotEqualTo(beforeCommit);
+
+        mockMvc.perform(delete("/gitminer/issues/" + project.getIssues().get(1).getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get(projectUrl).header(HttpHeaders.IF_NONE_MATCH, afterCommit)).andExpect(status().isOk());
+    }
+
+    @Test
+    void syncChangesTheEtagsOfEditedParents() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(23, 10).project("etag-sync", 5, 3, 2), new IngestReport());
+        String projectUrl = "/gitminer/projects/" + project.getId();
+        String commentsUrl = "/gitminer/issues/" + project.getIssues().get(1).getId() + "/comments";
+        String projectEtag = etag(projectUrl);
+        String commentsEtag = etag(commentsUrl);
+
+        projectSyncService.sync(edited(), new IngestReport());
+
+        mockMvc.perform(get(projectUrl).header(HttpHeaders.IF_NONE_MATCH, projectEtag)).andExpect(status().isOk());
+        mockMvc.perform(get(commentsUrl).header(HttpHeaders.IF_NONE_MATCH, commentsEtag)).andExpect(status().isOk());
+
+        // repetir el mismo re-minado no cambia nada y el ETag se mantiene
+        String syncedEtag = etag(projectUrl);
+        projectSyncService.sync(edited(), new IngestReport());
+        mockMvc.perform(get(projectUrl).header(HttpHeaders.IF_NONE_MATCH, syncedEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    // el proyecto de syncChangesTheEtagsOfEditedParents con cambios que no anaden ni quitan filas:
+    // el estado de una issue y el cuerpo de un comentario de otra
+    private static Project edited() {
+        Project project = new ProjectGenerator(23, 10).project("etag-sync", 5, 3, 2);
+        Issue issue = project.getIssues().get(0);
+        issue.setState("opened".equals(issue.getState()) ? "closed" : "opened");
+        Comment comment = project.getIssues().get(1).getComments().get(0);
+        comment.setBody(comment.getBody() + " ");
+        return project;
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
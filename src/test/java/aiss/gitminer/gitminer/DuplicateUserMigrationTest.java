@@ -0,0 +1,70 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.config.DuplicateUserMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La migracion sobre un esquema antiguo sin restricciones unicas en gmuser, en una base de datos propia:
+// fusiona las copias por web_url y por username y mueve las referencias al usuario con menor id
+class DuplicateUserMigrationTest {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:duplicate-users;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @BeforeEach
+    void createLegacySchema() {
+        jdbcTemplate.execute("CREATE TABLE gmuser (id BIGINT PRIMARY KEY, username VARCHAR(255), web_url VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE issue (id BIGINT PRIMARY KEY, author_id BIGINT, assignee_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE comment (id BIGINT PRIMARY KEY, author_id BIGINT)");
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void mergesDuplicatesByWebUrlAndByUsername() throws Exception {
+        jdbcTemplate.update("INSERT INTO gmuser VALUES (1, 'ana', 'https://example.com/ana'),"
+                + " (2, 'ana-copy', 'https://example.com/ana'),"
+                + " (3, 'ana', 'https://example.com/ana-moved'),"
+                + " (4, 'bob', NULL),"
+                + " (5, 'bob', NULL),"
+                + " (6, 'eve', 'https://example.com/eve')");
+        jdbcTemplate.update("INSERT INTO issue VALUES (10, 2, 3), (11, 5, 6)");
+        jdbcTemplate.update("INSERT INTO comment VALUES (20, 3), (21, 4), (22, 5)");
+
+        new DuplicateUserMigration(dataSource).afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM gmuser ORDER BY id", Long.class))
+                .containsExactly(1L, 4L, 6L);
+        assertThat(jdbcTemplate.queryForList("SELECT author_id FROM issue ORDER BY id", Long.class))
+                .containsExactly(1L, 4L);
+        assertThat(jdbcTemplate.queryForList("SELECT assignee_id FROM issue ORDER BY id", Long.class))
+                .containsExactly(1L, 6L);
+        assertThat(jdbcTemplate.queryForList("SELECT author_id FROM comment ORDER BY id", Long.class))
+                .containsExactly(1L, 4L, 4L);
+    }
+
+    @Test
+    void leavesDistinctUsersAlone() throws Exception {
+        jdbcTemplate.update("INSERT INTO gmuser VALUES (1, 'ana', 'https://example.com/ana'), (2, 'bob', NULL),"
+                + " (3, NULL, 'https://example.com/eve')");
+        jdbcTemplate.update("INSERT INTO issue VALUES (10, 1, 2)");
+
+        new DuplicateUserMigration(dataSource).afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM gmuser ORDER BY id", Long.class))
+                .isEqualTo(List.of(1L, 2L, 3L));
+        assertThat(jdbcTemplate.queryForMap("SELECT author_id, assignee_id FROM issue"))
+                .containsEntry("AUTHOR_ID", 1L).containsEntry("ASSIGNEE_ID", 2L);
+    }
+}
@@ -0,0 +1,206 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.ContentFingerprint;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.FingerprintBackfill;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.StreamingProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Huella de contenido unica por padre: los POST devuelven la fila ya guardada, la ingesta descarta las repetidas
+// dentro de un proyecto o de una issue, los forks y los "+1" en issues distintas se guardan, y el relleno
+// de la columna respeta la misma regla
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "gitminer.ingest.chunk-size=2"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class FingerprintTest {
+
+    private static final Instant CREATED = Instant.parse("2032-01-01T00:00:00Z");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    StreamingProjectIngestService streamingProjectIngestService;
+
+    @Autowired
+    FingerprintBackfill fingerprintBackfill;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void createIssueReturnsTheStoredIssueForTheSameContent() throws Exception {
+        long first = create("/gitminer/issues", "{\"title\": \"fingerprint issue\", \"state\": \"opened\", "
+                + "\"created_at\": \"" + CREATED + "\"}");
+        long again = create("/gitminer/issues", "{\"title\": \"  fingerprint issue\\r\\n\", \"state\": \"closed\", "
+                + "\"created_at\": \"" + CREATED + "\"}");
+        long later = create("/gitminer/issues", "{\"title\": \"fingerprint issue\", \"state\": \"opened\", "
+                + "\"created_at\": \"" + CREATED.plusSeconds(1) + "\"}");
+
+        assertThat(again).isEqualTo(first);
+        assertThat(later).isNotEqualTo(first);
+    }
+
+    @Test
+    void createCommentReturnsTheStoredCommentForTheSameContent() throws Exception {
+        long first = create("/gitminer/comments", "{\"body\": \"fingerprint comment\", \"created_at\": \"" + CREATED + "\"}");
+        long again = create("/gitminer/comments", "{\"body\": \"fingerprint comment \", \"created_at\": \"" + CREATED + "\"}");
+
+        assertThat(again).isEqualTo(first);
+    }
+
+    @Test
+    void ingestSkipsRepeatsWithinAParentAndKeepsThemAcrossParents() {
+        Project project = projectIngestService.ingest(project("fingerprint-ingest",
+                issue("repeated issue", comment("+1"), comment("+1"), comment("looks good")),
+                issue("repeated issue", comment("+1")),
+                issue("other issue", comment("+1"))), new IngestReport());
+
+        assertThat(project.getIssues()).extracting(Issue::getTitle).containsExactly("repeated issue", "other issue");
+        assertThat(project.getIssues().get(0).getComments()).extracting(Comment::getBody).containsExactly("+1", "looks good");
+        // el mismo "+1" en otra issue es otro comentario
+        assertThat(project.getIssues().get(1).getComments()).hasSize(1);
+
+        // un fork repite las mismas issues en otro proyecto
+        Project fork = projectIngestService.ingest(project("fingerprint-ingest-fork",
+                issue("repeated issue", comment("+1"))), new IngestReport());
+        assertThat(fork.getIssues()).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM issue WHERE fingerprint = ?", Long.class,
+                ContentFingerprint.of("repeated issue", CREATED))).isEqualTo(2);
+    }
+
+    @Test
+    void streamingIngestSkipsRepeatsAcrossChunks() throws Exception {
+        // bloques de dos issues: la repetida llega en el segundo bloque
+        byte[] body = objectMapper.writeValueAsBytes(project("fingerprint-stream",
+                issue("first issue", comment("+1"), comment("+1")),
+                issue("second issue"),
+                issue("third issue"),
+                issue("first issue")));
+
+        Project project = streamingProjectIngestService.ingest(new ByteArrayInputStream(body), new IngestReport());
+
+        assertThat(jdbcTemplate.queryForList("SELECT title FROM issue WHERE project_id = ? ORDER BY id", String.class,
+                project.getId())).containsExactly("first issue", "second issue", "third issue");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comment c JOIN issue i ON c.issue_id = i.id"
+                + " WHERE i.project_id = ?", Long.class, project.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void backfillLeavesRepeatsWithinAParentWithoutFingerprint(CapturedOutput output) {
+        Project project = projectIngestService.ingest(project("fingerprint-backfill",
+                issue("backfilled issue"), issue("becomes a duplicate")), new IngestReport());
+        Project fork = projectIngestService.ingest(project("fingerprint-backfill-fork",
+                issue("backfilled issue")), new IngestReport());
+        long original = project.getIssues().get(0).getId();
+        long duplicate = project.getIssues().get(1).getId();
+        long forked = fork.getIssues().get(0).getId();
+
+        // filas guardadas antes de la columna: sin huella y, en el mismo proyecto, con el mismo contenido
+        jdbcTemplate.update("UPDATE issue SET title = 'backfilled issue' WHERE id = ?", duplicate);
+        jdbcTemplate.update("UPDATE issue SET fingerprint = NULL WHERE id IN (?, ?, ?)", original, duplicate, forked);
+        entityManagerFactory.getCache().evictAll();
+
+        fingerprintBackfill.run();
+
+        String expected = ContentFingerprint.of("backfilled issue", CREATED);
+        assertThat(fingerprint(original)).isEqualTo(expected);
+        assertThat(fingerprint(forked)).isEqualTo(expected);
+        assertThat(fingerprint(duplicate)).isNull();
+        assertThat(output.getOut()).containsOnlyOnce("duplicate issue rows left without fingerprint: [" + duplicate + "]");
+
+        // en el siguiente arranque solo queda la fila repetida: no se vuelve a avisar
+        fingerprintBackfill.run();
+        assertThat(output.getOut()).containsOnlyOnce("duplicate issue rows left without fingerprint");
+    }
+
+    @Test
+    void backfillChecksStoredFingerprintsOncePerChunk() {
+        List<Issue> issues = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            issues.add(issue("chunked backfill " + i));
+        }
+        issues.add(issue("already fingerprinted"));
+        Project project = projectIngestService.ingest(project("fingerprint-backfill-chunk",
+                issues.toArray(new Issue[0])), new IngestReport());
+        long repeat = project.getIssues().get(40).getId();
+        // 40 filas sin huella y una que repite el contenido de otra que ya la tiene
+        jdbcTemplate.update("UPDATE issue SET fingerprint = NULL WHERE project_id = ?", project.getId());
+        jdbcTemplate.update("UPDATE issue SET fingerprint = ? WHERE id = ?",
+                ContentFingerprint.of("chunked backfill 0", CREATED), project.getIssues().get(0).getId());
+        jdbcTemplate.update("UPDATE issue SET title = 'chunked backfill 0', fingerprint = NULL WHERE id = ?", repeat);
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long queries = statistics.getQueryExecutionCount();
+
+        fingerprintBackfill.run();
+
+        assertThat(fingerprint(project.getIssues().get(39).getId()))
+                .isEqualTo(ContentFingerprint.of("chunked backfill 39", CREATED));
+        assertThat(fingerprint(repeat)).isNull();
+        // bloque, padres y huellas ya guardadas: tres consultas por bloque y tabla, no una por fila
+        assertThat(statistics.getQueryExecutionCount() - queries).isLessThan(20);
+    }
+
+    private long create(String url, String json) throws Exception {
+        JsonNode created = objectMapper.readTree(mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString());
+        return created.get("id").asLong();
+    }
+
+    private String fingerprint(long issueId) {
+        return jdbcTemplate.queryForObject("SELECT fingerprint FROM issue WHERE id = ?", String.class, issueId);
+    }
+
+    private static Project project(String name, Issue... issues) {
+        return new Project(name, "https://example.com/" + name, new ArrayList<>(), new ArrayList<>(List.of(issues)));
+    }
+
+    private static Issue issue(String title, Comment... comments) {
+        return new Issue(title, null, "opened", CREATED, CREATED, null, new ArrayList<>(), null, null, 0,
+                new ArrayList<>(List.of(comments)));
+    }
+
+    private static Comment comment(String body) {
+        return new Comment(body, null, CREATED, null);
+    }
+}
@@ -0,0 +1,70 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Histogramas por intervalo calculados con GROUP BY; las fechas del generador avanzan un minuto por fila
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class HistogramTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void commitsPerHour() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(41, 5).project("histogram-commits", 150, 0, 0), new IngestReport());
+
+        JsonNode histogram = histogram("/gitminer/commits/histogram?bucket=hour&project=" + project.getId());
+
+        assertThat(histogram.get("bucket").asText()).isEqualTo("hour");
+        assertThat(histogram.get("buckets").toString())
+                .isEqualTo("[\"2020-01-01T00:00:00Z\",\"2020-01-01T01:00:00Z\",\"2020-01-01T02:00:00Z\"]");
+        assertThat(histogram.get("commits").toString()).isEqualTo("[60,60,30]");
+    }
+
+    @Test
+    void issuesOpenedAndClosedPerDay() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(42, 5).project("histogram-issues", 0, 10, 0), new IngestReport());
+        long closed = project.getIssues().stream().filter(i -> "closed".equals(i.getState())).count();
+
+        JsonNode histogram = histogram("/gitminer/issues/histogram?bucket=day&project=" + project.getId());
+
+        assertThat(histogram.get("buckets").toString()).isEqualTo("[\"2020-01-01T00:00:00Z\"]");
+        assertThat(histogram.get("opened").get(0).asLong()).isEqualTo(10);
+        assertThat(histogram.get("closed").get(0).asLong()).isEqualTo(closed);
+    }
+
+    @Test
+    void unknownBucketIsABadRequest() throws Exception {
+        mockMvc.perform(get("/gitminer/commits/histogram?bucket=fortnight")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode histogram(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
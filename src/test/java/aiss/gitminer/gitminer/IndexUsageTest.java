@@ -0,0 +1,218 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.User;
+import aiss.gitminer.repository.CommentRepository;
+import aiss.gitminer.repository.CommitRepository;
+import aiss.gitminer.repository.IssueRepository;
+import aiss.gitminer.repository.ProjectRepository;
+import aiss.gitminer.repository.UserRepository;
+import aiss.gitminer.repository.keyset.KeysetQuery;
+import aiss.gitminer.repository.specification.FieldSpecifications;
+import aiss.gitminer.repository.specification.IssueSpecifications;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Ejecuta cada finder de los repositorios (los derivados y las Specification que usan los endpoints),
+// recoge el SQL que genera Hibernate y comprueba con EXPLAIN de H2 que ninguna sentencia recorre la tabla entera
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // sin cache de consultas: cada llamada tiene que llegar a la base de datos
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTest {
+
+    private static final Instant DATE = Instant.parse("2020-01-01T00:05:00Z");
+    private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @TestConfiguration
+    static class CaptureSql {
+
+        // envuelve el StatementInspector de la aplicacion (SampledSqlLogger) para quedarse con cada sentencia
+        @Bean
+        HibernatePropertiesCustomizer capturingStatementInspector() {
+            return properties -> {
+                StatementInspector delegate = (StatementInspector) properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                    STATEMENTS.add(sql);
+                    return delegate != null ? delegate.inspect(sql) : sql;
+                });
+            };
+        }
+    }
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    CommitRepository commitRepository;
+
+    @Autowired
+    IssueRepository issueRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    KeysetQuery keysetQuery;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        ProjectGenerator generator = new ProjectGenerator(11, 50);
+        for (int p = 0; p < 3; p++) {
+            projectIngestService.ingest(generator.project("index-usage-" + p, 100, 100, 2), new IngestReport());
+        }
+    }
+
+    Stream<Arguments> finders() {
+        Pageable page = PageRequest.of(0, 5);
+        return Stream.of(
+                finder("GET /commits?author_name", () -> commitRepository.findAll(
+                        FieldSpecifications.<Commit>equalTo("authorName", "author1"), page)),
+                finder("GET /commits?authored_date", () -> commitRepository.findAll(
+                        FieldSpecifications.<Commit>equalTo("authoredDate", DATE), page)),
+                finder("GET /commits?author_name&authored_date", () -> commitRepository.findAll(
+                        FieldSpecifications.<Commit>equalTo("authorName", "author1")
+                                .and(FieldSpecifications.equalTo("authoredDate", DATE)), page)),
+                finder("GET /commits?since&until", () -> commitRepository.findAll(
+                        FieldSpecifications.<Commit, Instant>between("authoredDate", DATE, DATE.plusSeconds(300)), page)),
+                finder("CommitRepository.findByAuthorName", () -> commitRepository.findByAuthorName("author1", page)),
+                finder("CommitRepository.findByAuthoredDate", () -> commitRepository.findByAuthoredDate(DATE, page)),
+                finder("CommitRepository.findByAuthorNameAndAuthoredDate",
+                        () -> commitRepository.findByAuthorNameAndAuthoredDate("author1", DATE, page)),
+
+                finder("GET /issues?state", () -> issueRepository.findAll(
+                        IssueSpecifications.matching("opened", null, null, null, null, null), page)),
+                finder("GET /issues?state&created_at", () -> issueRepository.findAll(
+                        IssueSpecifications.matching("opened", null, DATE, null, null, null), page)),
+                finder("GET /issues?state&authorId", () -> issueRepository.findAll(
+                        IssueSpecifications.matching("opened", 1L, null, null, null, null), page)),
+                finder("GET /issues?authorId", () -> issueRepository.findAll(
+                        IssueSpecifications.matching(null, 1L, null, null, null, null), page)),
+                finder("GET /issues?created_at", () -> issueRepository.findAll(
+                        IssueSpecifications.matching(null, null, DATE, null, null, null), page)),
+                finder("GET /issues?since&until", () -> issueRepository.findAll(
+                        IssueSpecifications.matching(null, null, null, null, DATE, DATE.plusSeconds(300)), page)),
+                finder("IssueRepository.findByState", () -> issueRepository.findByState("opened", page)),
+                finder("IssueRepository.findByStateAndCreatedAt",
+                        () -> issueRepository.findByStateAndCreatedAt("opened", DATE, page)),
+                finder("IssueRepository.findByStateAndAuthorId",
+                        () -> issueRepository.findByStateAndAuthorId("opened", 1L, page)),
+                finder("IssueRepository.findByCreatedAt", () -> issueRepository.findByCreatedAt(DATE, page)),
+                finder("IssueRepository.findFirstByFingerprintOrderByIdAsc", () -> issueRepository.findFirstByFingerprintOrderByIdAsc("abc")),
+
+                finder("GET /comments?created_at", () -> commentRepository.findAll(
+                        FieldSpecifications.<Comment>equalTo("createdAt", DATE), page)),
+                finder("GET /comments?since&until", () -> commentRepository.findAll(
+                        FieldSpecifications.<Comment, Instant>between("createdAt", DATE, DATE.plusSeconds(300)), page)),
+                finder("CommentRepository.findByCreatedAt", () -> commentRepository.findByCreatedAt(page, DATE)),
+                finder("CommentRepository.findFirstByFingerprintOrderByIdAsc", () -> commentRepository.findFirstByFingerprintOrderByIdAsc("abc")),
+
+                finder("UserRepository.findByName", () -> userRepository.findByName("User 1", page)),
+                finder("GET /users?name&cursor", () -> keysetQuery.find(User.class,
+                        FieldSpecifications.equalTo("name", "User 1"), null, "", 5, null)),
+                finder("UserRepository.findByUsername", () -> userRepository.findByUsername("user1")),
+                finder("UserRepository.findByUsernameIn", () -> userRepository.findByUsernameIn(List.of("user1", "user2"))),
+                finder("UserRepository.findByWebUrl", () -> userRepository.findByWebUrl("https://example.com/user1")),
+                finder("UserRepository.findByWebUrlIn", () -> userRepository.findByWebUrlIn(
+                        List.of("https://example.com/user1", "https://example.com/user2"))),
+
+                finder("ProjectRepository.findByName", () -> projectRepository.findByName("index-usage-1")),
+                finder("ProjectRepository.findByName(paged)", () -> projectRepository.findByName("index-usage-1", page))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderUsesAnIndex(String finder, Finder call) throws Exception {
+        STATEMENTS.clear();
+        call.run();
+        List<String> selects = STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .collect(Collectors.toList());
+
+        assertThat(selects).as("SQL generated by %s", finder).isNotEmpty();
+        for (String sql : selects) {
+            assertThat(explain(sql)).as("plan for %s: %s", finder, sql).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    // EXPLAIN de la sentencia tal cual la genera Hibernate, con un valor de ejemplo del tipo de cada parametro
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    statement.setObject(i, sample(parameters.getParameterType(i)));
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Object sample(int sqlType) {
+        switch (sqlType) {
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return Timestamp.from(DATE);
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+                return 1;
+            default:
+                return "1";
+        }
+    }
+
+    private static Arguments finder(String name, Finder call) {
+        return Arguments.of(name, call);
+    }
+
+    interface Finder {
+        void run() throws Exception;
+    }
+}
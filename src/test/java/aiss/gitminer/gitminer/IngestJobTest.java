@@ -0,0 +1,141 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestJob;
+import aiss.gitminer.service.IngestJobService;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.ProjectNameLocks;
+import aiss.gitminer.service.ProjectSyncService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class IngestJobTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ProjectSyncService projectSyncService;
+
+    @Autowired
+    ProjectNameLocks projectNameLocks;
+
+    @Test
+    void asyncIngestReportsProgressUntilDone() throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(new ProjectGenerator(9, 10).project("async-ingest", 20, 20, 2));
+
+        String accepted = mockMvc.perform(post("/gitminer/projects?async=true")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(accepted).get("id").asText();
+
+        JsonNode job = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            job = objectMapper.readTree(mockMvc.perform(get("/gitminer/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String state = job.get("status").asText();
+            if (state.equals("SUCCEEDED") || state.equals("FAILED")) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        assertThat(job.get("status").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("project_id").asLong()).isPositive();
+        assertThat(job.get("report").get("total_rows").asLong()).isGreaterThan(0);
+    }
+
+    @Test
+    void queuedJobsOutliveTheRetentionAndFinishedOnesExpire() throws Exception {
+        IngestJobService service = jobService(Duration.ofMillis(20), projectIngestService);
+        try {
+            Project project = new ProjectGenerator(13, 5).project("async-retention", 3, 2, 1);
+            // con el lock del nombre tomado el job no puede empezar
+            projectNameLocks.lock(project.getName());
+            IngestJob job;
+            try {
+                job = service.submit(project);
+                Thread.sleep(100);
+                assertThat(service.find(job.getId())).isPresent();
+            } finally {
+                projectNameLocks.unlock(project.getName());
+            }
+            assertThat(await(service, job).getStatus()).isEqualTo(IngestJob.Status.SUCCEEDED);
+            Thread.sleep(100);
+            assertThat(service.find(job.getId())).isEmpty();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void errorsFailTheJob() throws Exception {
+        ProjectIngestService broken = new ProjectIngestService() {
+            @Override
+            public Project ingest(Project project, IngestReport report) {
+                throw new StackOverflowError();
+            }
+        };
+        IngestJobService service = jobService(Duration.ofHours(1), broken);
+        try {
+            IngestJob job = service.submit(new ProjectGenerator(14, 5).project("async-error", 1, 0, 0));
+            IngestJob done = await(service, job);
+            assertThat(done.getStatus()).isEqualTo(IngestJob.Status.FAILED);
+            assertThat(done.getError()).startsWith("StackOverflowError");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private IngestJobService jobService(Duration retention, ProjectIngestService ingest) {
+        IngestJobService service = new IngestJobService(1, 5, retention, false);
+        ReflectionTestUtils.setField(service, "projectIngestService", ingest);
+        ReflectionTestUtils.setField(service, "projectSyncService", projectSyncService);
+        ReflectionTestUtils.setField(service, "projectNameLocks", projectNameLocks);
+        return service;
+    }
+
+    private IngestJob await(IngestJobService service, IngestJob job) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            IngestJob.Status status = service.find(job.getId()).map(IngestJob::getStatus).orElse(null);
+            if (status == IngestJob.Status.SUCCEEDED || status == IngestJob.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        return job;
+    }
+
+    @Test
+    void unknownJobIsNotFound() throws Exception {
+        mockMvc.perform(get("/gitminer/jobs/does-not-exist")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,101 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.User;
+import aiss.gitminer.repository.IssueRepository;
+import aiss.gitminer.repository.specification.IssueSpecifications;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class IssueRepositoryTest {
+
+    private static final int ISSUES = 200;
+
+    @Autowired
+    IssueRepository issueRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private List<User> authors;
+
+    @BeforeEach
+    void setUp() {
+        authors = new ArrayList<>();
+        for (int a = 0; a < 4; a++) {
+            authors.add(entityManager.persist(new User("user" + a, "User " + a, null, "https://example.com/user" + a)));
+        }
+        for (int i = 0; i < ISSUES; i++) {
+            Instant createdAt = Instant.parse(String.format("2023-01-%02dT10:00:00Z", 1 + i % 28));
+            entityManager.persist(new Issue("issue " + i, "description " + i, i % 2 == 0 ? "opened" : "closed",
+                    createdAt, createdAt, null, Collections.singletonList(i % 3 == 0 ? "bug" : "feature"),
+                    authors.get(i % authors.size()), null, 0, new ArrayList<>()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void authorFilterIsPagedInTheDatabase() {
+        Long authorId = authors.get(1).getId();
+        Statistics statistics = statistics();
+
+        Page<Issue> page = issueRepository.findAll(
+                IssueSpecifications.matching(null, authorId, null, null, null, null), PageRequest.of(0, 5));
+
+        assertThat(page.getContent()).hasSize(5)
+                .allMatch(issue -> issue.getAuthor().getId().equals(authorId));
+        assertThat(page.getTotalElements()).isEqualTo(ISSUES / authors.size());
+        // pagina + count + autor, sin depender del tamaño de la tabla
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(statistics.getEntityStatistics(Issue.class.getName()).getLoadCount()).isEqualTo(5);
+    }
+
+    @Test
+    void combinedFiltersRunAsSinglePagedQuery() {
+        Long authorId = authors.get(0).getId();
+        Statistics statistics = statistics();
+
+        Instant since = Instant.parse("2023-01-05T00:00:00Z");
+        Instant until = Instant.parse("2023-01-20T00:00:00Z");
+
+        Page<Issue> page = issueRepository.findAll(
+                IssueSpecifications.matching("opened", authorId, null, "bug", since, until),
+                PageRequest.of(0, 3));
+
+        assertThat(page.getContent()).hasSizeLessThanOrEqualTo(3)
+                .allMatch(issue -> issue.getState().equals("opened")
+                        && issue.getLabels().contains("bug")
+                        && !issue.getCreatedAt().isBefore(since)
+                        && issue.getCreatedAt().isBefore(until));
+        assertThat(statistics.getEntityStatistics(Issue.class.getName()).getLoadCount())
+                .isLessThanOrEqualTo(3);
+        // pagina + count + autor + etiquetas de cada issue devuelta
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + 3);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,147 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Paginas keyset: recorridas de principio a fin sin saltar ni repetir filas, con empates y null en la
+// columna de orden (los null van primero en los dos sentidos), cursores invalidos y cabeceras Link
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class KeysetPagingTest {
+
+    // fechas propias para filtrar solo las issues de este test aunque la base de datos sea compartida
+    private static final Instant SINCE = Instant.parse("2031-01-01T00:00:00Z");
+    private static final Instant UNTIL = Instant.parse("2031-01-02T00:00:00Z");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private List<Issue> issues;
+
+    @BeforeAll
+    void seed() {
+        Project project = new ProjectGenerator(61, 10).project("keyset-paging", 0, 23, 0);
+        for (Issue issue : project.getIssues()) {
+            issue.setCreatedAt(issue.getCreatedAt().plus(Duration.ofDays(4018)));
+        }
+        issues = projectIngestService.ingest(project, new IngestReport()).getIssues();
+    }
+
+    @Test
+    void walksTiedValuesWithoutGapsOrDuplicates() throws Exception {
+        // solo dos estados: casi todas las fronteras de pagina caen dentro de un empate
+        assertThat(walk("state", 4)).isEqualTo(expected(Issue::getState, false));
+        assertThat(walk("-state", 4)).isEqualTo(expected(Issue::getState, true));
+    }
+
+    @Test
+    void walksNullSortKeysFirst() throws Exception {
+        // las issues abiertas no tienen closed_at
+        assertThat(walk("closedAt", 3)).isEqualTo(expected(Issue::getClosedAt, false));
+        assertThat(walk("-closedAt", 3)).isEqualTo(expected(Issue::getClosedAt, true));
+    }
+
+    @Test
+    void walksById() throws Exception {
+        assertThat(walk(null, 5)).isEqualTo(expected(Issue::getId, false));
+    }
+
+    @Test
+    void nextPageIsAdvertisedInLinkAndHeader() throws Exception {
+        MockHttpServletResponse first = page("createdAt", "", 10);
+        String next = first.getHeader("X-Next-Cursor");
+
+        assertThat(next).isNotEmpty();
+        assertThat(first.getHeader(HttpHeaders.LINK))
+                .startsWith("<http://localhost/gitminer/issues?")
+                .contains("cursor=" + next)
+                .doesNotContain("page=")
+                .endsWith(">; rel=\"next\"");
+
+        MockHttpServletResponse last = page("createdAt", "", 50);
+        assertThat(last.getHeader("X-Next-Cursor")).isNull();
+        assertThat(last.getHeader(HttpHeaders.LINK)).isNull();
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        for (String cursor : List.of("%%%", encode("no-separator"), encode("x:n"), encode("7:not-a-value"),
+                encode("7:vnot-a-date"))) {
+            mockMvc.perform(get("/gitminer/issues").param("order", "closedAt").param("cursor", cursor))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private List<Long> walk(String order, int size) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = page(order, cursor, size);
+            JsonNode body = objectMapper.readTree(response.getContentAsString());
+            assertThat(body.size()).isLessThanOrEqualTo(size);
+            body.forEach(issue -> ids.add(issue.get("id").asLong()));
+            cursor = response.getHeader("X-Next-Cursor");
+        }
+        return ids;
+    }
+
+    private MockHttpServletResponse page(String order, String cursor, int size) throws Exception {
+        var request = get("/gitminer/issues")
+                .param("since", SINCE.toString())
+                .param("until", UNTIL.toString())
+                .param("cursor", cursor)
+                .param("size", String.valueOf(size));
+        if (order != null) {
+            request.param("order", order);
+        }
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+    }
+
+    // orden esperado calculado en memoria: null primero, luego el valor y el id en el mismo sentido
+    private <V extends Comparable<V>> List<Long> expected(Function<Issue, V> key, boolean descending) {
+        Comparator<Issue> byValue = Comparator.comparing(key, Comparator.nullsFirst(
+                descending ? Comparator.<V>reverseOrder() : Comparator.<V>naturalOrder()));
+        Comparator<Issue> byId = descending ? Comparator.comparing(Issue::getId).reversed()
+                : Comparator.comparing(Issue::getId);
+        return issues.stream().sorted(byValue.thenComparing(byId)).map(Issue::getId).collect(Collectors.toList());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
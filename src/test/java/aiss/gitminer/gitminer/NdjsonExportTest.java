@@ -0,0 +1,88 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Las exportaciones NDJSON devuelven una linea JSON por fila de la tabla, sin paginar
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NdjsonExportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    void seed() {
+        // mas filas que NdjsonExportService.FLUSH_EVERY para pasar por varios clear()
+        projectIngestService.ingest(new ProjectGenerator(3, 40).project("ndjson-export", 1_200, 600, 2),
+                new IngestReport());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"commits, commit", "issues, issue", "comments, comment"})
+    void exportsEveryRowOncePerLine(String resource, String table) throws Exception {
+        // con la cache vacia, cada fila leida con CacheMode.NORMAL se guardaria en ella
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long puts = statistics.getSecondLevelCachePutCount();
+        MvcResult started = mockMvc.perform(get("/gitminer/" + resource + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Set<Long> ids = new HashSet<>();
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            ids.add(node.get("id").asLong());
+        }
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        assertThat(body).endsWith("\n");
+        assertThat(lines).hasSize(rows.intValue());
+        assertThat(ids).hasSize(rows.intValue());
+        // el volcado no pasa por la cache de segundo nivel
+        assertThat(statistics.getSecondLevelCachePutCount()).isEqualTo(puts);
+    }
+}
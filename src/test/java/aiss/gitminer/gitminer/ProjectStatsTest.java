@@ -0,0 +1,136 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.exception.CommitNotFoundException;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.DeletionService;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Las estadisticas de las tablas de rollup coinciden con el proyecto tras la ingesta y los borrados
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ProjectStatsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    DeletionService deletionService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void statsFollowIngestAndDeletes() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(31, 5).project("stats", 12, 6, 2), new IngestReport());
+        String url = "/gitminer/projects/" + project.getId() + "/stats";
+        long closed = project.getIssues().stream().filter(i -> "closed".equals(i.getState())).count();
+
+        JsonNode stats = stats(url);
+        assertThat(stats.get("commits").asLong()).isEqualTo(12);
+        assertThat(stats.get("issues").asLong()).isEqualTo(6);
+        assertThat(stats.get("closed_issues").asLong()).isEqualTo(closed);
+        assertThat(stats.get("comments").asLong()).isEqualTo(12);
+        assertThat(stats.get("comments_per_issue").asDouble()).isEqualTo(2.0);
+        long topAuthorCommits = project.getCommits().stream()
+                .filter(c -> c.getAuthorName().equals(stats.get("top_authors").get(0).get("author").asText()))
+                .count();
+        assertThat(stats.get("top_authors").get(0).get("commits").asLong()).isEqualTo(topAuthorCommits);
+
+        Commit commit = project.getCommits().get(0);
+        Issue issue = project.getIssues().get(0);
+        mockMvc.perform(delete("/gitminer/commits/" + commit.getId())).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/gitminer/comments/" + project.getIssues().get(1).getComments().get(0).getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/gitminer/issues/" + issue.getId())).andExpect(status().isNoContent());
+
+        JsonNode after = stats(url);
+        assertThat(after.get("commits").asLong()).isEqualTo(11);
+        assertThat(after.get("issues").asLong()).isEqualTo(5);
+        assertThat(after.get("closed_issues").asLong())
+                .isEqualTo("closed".equals(issue.getState()) ? closed - 1 : closed);
+        // dos comentarios de la issue borrada y uno suelto
+        assertThat(after.get("comments").asLong()).isEqualTo(9);
+
+        JsonNode global = stats("/gitminer/stats");
+        assertThat(global.get("projects").asLong()).isGreaterThanOrEqualTo(1);
+        assertThat(global.get("commits").asLong()).isGreaterThanOrEqualTo(11);
+
+        long projects = global.get("projects").asLong();
+        mockMvc.perform(delete("/gitminer/projects/" + project.getId())).andExpect(status().isNoContent());
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+        // la fila de project_stats se borra con el proyecto
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM project_stats WHERE project_id = ?",
+                Long.class, project.getId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM author_stats WHERE project_id = ?",
+                Long.class, project.getId())).isZero();
+        assertThat(stats("/gitminer/stats").get("projects").asLong()).isLessThan(projects);
+    }
+
+    @Test
+    void failedDeleteLeavesRowAndStatsUntouched() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(33, 3).project("stats-rollback", 4, 2, 1), new IngestReport());
+        Commit commit = project.getCommits().get(0);
+
+        // el borrado corre en la transaccion del llamante: si esta se deshace, fila y contadores vuelven juntos
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                deletionService.deleteCommit(commit.getId());
+            } catch (CommitNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM commit WHERE id = ?",
+                Long.class, commit.getId())).isOne();
+        assertThat(stats("/gitminer/projects/" + project.getId() + "/stats").get("commits").asLong()).isEqualTo(4);
+    }
+
+    @Test
+    void topOutOfRangeIsBadRequest() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(34, 2).project("stats-top", 2, 1, 0), new IngestReport());
+        String url = "/gitminer/projects/" + project.getId() + "/stats";
+        mockMvc.perform(get(url).param("top", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get(url).param("top", "101")).andExpect(status().isBadRequest());
+        mockMvc.perform(get(url).param("top", "0")).andExpect(status().isOk());
+        mockMvc.perform(get(url).param("top", "100")).andExpect(status().isOk());
+    }
+
+    private JsonNode stats(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
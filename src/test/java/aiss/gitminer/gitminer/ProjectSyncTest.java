@@ -0,0 +1,153 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Commit;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.ProjectStatsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// POST /projects?sync=true sobre un proyecto existente solo escribe lo que ha cambiado
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ProjectSyncTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ProjectStatsService projectStatsService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void resyncWritesOnlyTheDelta() throws Exception {
+        mockMvc.perform(post("/gitminer/projects").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(payload())))
+                .andExpect(status().isCreated());
+
+        Project changed = payload();
+        changed.getCommits().remove(0);
+        changed.getCommits().get(0).setTitle("retitled");
+        changed.getCommits().add(new Commit("new commit", "message", "author", "author@example.com",
+                Instant.parse("2021-01-01T00:00:00Z"), "https://example.com/sync/commit/new"));
+        Issue issue = changed.getIssues().get(0);
+        issue.setVotes(issue.getVotes() + 1);
+        changed.getIssues().get(1).getComments().remove(0);
+
+        JsonNode report = sync(changed);
+        assertThat(rows(report, "commits.inserted")).isEqualTo(1);
+        assertThat(rows(report, "commits.updated")).isEqualTo(1);
+        assertThat(rows(report, "commits.deleted")).isEqualTo(1);
+        assertThat(rows(report, "issues.inserted")).isZero();
+        assertThat(rows(report, "issues.updated")).isEqualTo(1);
+        assertThat(rows(report, "issues.deleted")).isZero();
+        assertThat(rows(report, "comments.inserted")).isZero();
+        assertThat(rows(report, "comments.deleted")).isEqualTo(1);
+
+        // el mismo payload otra vez no escribe nada
+        Project same = payload();
+        same.getCommits().remove(0);
+        same.getCommits().get(0).setTitle("retitled");
+        same.getCommits().add(changed.getCommits().get(changed.getCommits().size() - 1));
+        same.getIssues().get(0).setVotes(issue.getVotes());
+        same.getIssues().get(1).getComments().remove(0);
+        assertThat(sync(same).get("total_rows").asLong()).isZero();
+    }
+
+    @Test
+    void resyncLoadsOnlyChangedRowsAndKeepsStatsInStep() throws Exception {
+        String created = mockMvc.perform(post("/gitminer/projects").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(deltaPayload())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String url = "/gitminer/projects/" + objectMapper.readTree(created).get("id").asText() + "/stats?top=100";
+
+        Project changed = deltaPayload();
+        changed.getCommits().remove(0);
+        changed.getCommits().get(0).setTitle("retitled");
+        changed.getCommits().get(1).setAuthorName("someone else");
+        changed.getCommits().add(new Commit("new commit", "message", "author", "author@example.com",
+                Instant.parse("2021-01-01T00:00:00Z"), "https://example.com/sync-delta/commit/new"));
+        Issue flipped = changed.getIssues().get(0);
+        flipped.setState("closed".equals(flipped.getState()) ? "opened" : "closed");
+        changed.getIssues().remove(1);
+        Issue added = new Issue("new issue", "description", "opened", Instant.parse("2021-01-02T00:00:00Z"),
+                null, null, new ArrayList<>(List.of("bug")), flipped.getAuthor(), null, 0, new ArrayList<>(List.of(
+                new Comment("first", flipped.getAuthor(), Instant.parse("2021-01-03T00:00:00Z"), null),
+                new Comment("second", flipped.getAuthor(), Instant.parse("2021-01-04T00:00:00Z"), null))));
+        changed.getIssues().add(added);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        JsonNode report = sync(changed);
+        assertThat(rows(report, "commits.updated")).isEqualTo(2);
+        assertThat(rows(report, "issues.updated")).isEqualTo(1);
+        assertThat(rows(report, "issues.deleted")).isEqualTo(1);
+        assertThat(rows(report, "comments.inserted")).isEqualTo(2);
+        assertThat(rows(report, "comments.deleted")).isEqualTo(3);
+        // solo se cargan los commits y las issues que cambian o se borran, no el proyecto entero
+        assertThat(statistics.getEntityStatistics(Commit.class.getName()).getLoadCount()).isEqualTo(3);
+        assertThat(statistics.getEntityStatistics(Issue.class.getName()).getLoadCount()).isEqualTo(2);
+
+        // los deltas dejan las mismas estadisticas que un recuento completo
+        JsonNode incremental = objectMapper.readTree(mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        projectStatsService.rebuild(objectMapper.readTree(created).get("id").asLong());
+        JsonNode recounted = objectMapper.readTree(mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(incremental).isEqualTo(recounted);
+        assertThat(incremental.get("commits").asLong()).isEqualTo(20);
+        assertThat(incremental.get("issues").asLong()).isEqualTo(10);
+        assertThat(incremental.get("comments").asLong()).isEqualTo(29);
+    }
+
+    private Project deltaPayload() {
+        return new ProjectGenerator(35, 10).project("sync-delta", 20, 10, 3);
+    }
+
+    private Project payload() {
+        return new ProjectGenerator(31, 10).project("sync", 10, 5, 2);
+    }
+
+    private JsonNode sync(Project project) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(post("/gitminer/projects?sync=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(project)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private long rows(JsonNode report, String stage) {
+        for (JsonNode s : report.get("stages")) {
+            if (s.get("name").asText().equals(stage)) {
+                return s.get("rows").asLong();
+            }
+        }
+        throw new AssertionError("No stage " + stage + " in " + report);
+    }
+}
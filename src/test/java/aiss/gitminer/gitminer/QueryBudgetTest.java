@@ -0,0 +1,107 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Presupuesto de sentencias SQL por endpoint: falla el build si aparece un N+1.
+// Sin cache de segundo nivel, para que los aciertos de cache no tapen consultas y el orden de los tests no importe.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Long projectId;
+    private Long issueId;
+
+    @BeforeAll
+    void seed() {
+        ProjectGenerator generator = new ProjectGenerator(7, 50);
+        for (int p = 0; p < 3; p++) {
+            Project project = projectIngestService.ingest(
+                    generator.project("query-budget-" + p, 40, 40, 3), new IngestReport());
+            projectId = project.getId();
+            issueId = project.getIssues().get(0).getId();
+        }
+    }
+
+    @Test
+    void projectList() throws Exception {
+        assertBudget("/gitminer/projects", 2);
+    }
+
+    @Test
+    void projectListExpanded() throws Exception {
+        assertBudget("/gitminer/projects?expand=commits,issues,comments,labels,author", 12);
+    }
+
+    @Test
+    void projectById() throws Exception {
+        assertBudget("/gitminer/projects/" + projectId, 6);
+    }
+
+    @Test
+    void issueList() throws Exception {
+        assertBudget("/gitminer/issues?size=20", 2);
+    }
+
+    @Test
+    void issueListExpanded() throws Exception {
+        assertBudget("/gitminer/issues?size=20&expand=comments,labels,author", 5);
+    }
+
+    @Test
+    void issueById() throws Exception {
+        assertBudget("/gitminer/issues/" + issueId, 4);
+    }
+
+    @Test
+    void issueComments() throws Exception {
+        assertBudget("/gitminer/issues/" + issueId + "/comments", 2);
+    }
+
+    @Test
+    void commentList() throws Exception {
+        assertBudget("/gitminer/comments?size=20", 2);
+    }
+
+    private void assertBudget(String url, long budget) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements for GET %s", url)
+                .isLessThanOrEqualTo(budget);
+    }
+}
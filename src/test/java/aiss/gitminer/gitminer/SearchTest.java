@@ -0,0 +1,217 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.SearchIndex;
+import aiss.gitminer.service.SearchIndexRebuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// El indice de busqueda sigue a las ingestas, altas y borrados, y se puede reconstruir desde la base de datos
+// sin perder ni exponer a medias las escrituras que llegan mientras tanto
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class SearchTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    SearchIndexRebuilder searchIndexRebuilder;
+
+    @Autowired
+    SearchIndex searchIndex;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createdIssuesAreSearchableUntilDeleted() throws Exception {
+        String issue = "{\"title\":\"Parser crash\",\"description\":\"NullPointerException in TokenStream.next\","
+                + "\"state\":\"opened\",\"created_at\":\"2021-03-01T10:00:00Z\"}";
+        String body = mockMvc.perform(post("/gitminer/issues").contentType(MediaType.APPLICATION_JSON).content(issue))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(body).get("id").asLong();
+
+        JsonNode results = search("/gitminer/search?q=NullPointerException&type=issue");
+        assertThat(results.get("total").asLong()).isEqualTo(1);
+        assertThat(results.get("hits").get(0).get("id").asLong()).isEqualTo(id);
+        assertThat(search("/gitminer/search?q=NullPointerException&type=commit").get("total").asLong()).isZero();
+
+        mockMvc.perform(delete("/gitminer/issues/" + id)).andExpect(status().isNoContent());
+        assertThat(search("/gitminer/search?q=NullPointerException").get("total").asLong()).isZero();
+    }
+
+    @Test
+    void ingestedProjectsAreIndexedAndRebuildable() throws Exception {
+        projectIngestService.ingest(new ProjectGenerator(51, 5).project("searchable", 7, 3, 2), new IngestReport());
+        String url = "/gitminer/search?q=searchable&type=commit&size=5";
+
+        JsonNode results = search(url);
+        assertThat(results.get("total").asLong()).isEqualTo(7);
+        assertThat(results.get("hits").size()).isEqualTo(5);
+        assertThat(search(url + "&page=1").get("hits").size()).isEqualTo(2);
+
+        searchIndexRebuilder.rebuild();
+        assertThat(search(url).get("total").asLong()).isEqualTo(7);
+    }
+
+    @Test
+    void theCommittedTextIsIndexed() throws Exception {
+        // el indice relee las filas al confirmar: cuenta el ultimo texto y no lo que se borro en la misma transaccion
+        Long[] ids = new Long[2];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Issue kept = issue("firstdraft");
+            Issue dropped = issue("shortlived");
+            entityManager.persist(kept);
+            entityManager.persist(dropped);
+            entityManager.flush();
+            kept.setTitle("finaldraft");
+            entityManager.remove(dropped);
+            ids[0] = kept.getId();
+            ids[1] = dropped.getId();
+        });
+
+        assertThat(search("/gitminer/search?q=firstdraft").get("total").asLong()).isZero();
+        assertThat(search("/gitminer/search?q=shortlived").get("total").asLong()).isZero();
+        JsonNode results = search("/gitminer/search?q=finaldraft");
+        assertThat(results.get("total").asLong()).isEqualTo(1);
+        assertThat(results.get("hits").get(0).get("id").asLong()).isEqualTo(ids[0]);
+    }
+
+    @Test
+    void aFailedRebuildKeepsThePreviousIndex() throws Exception {
+        projectIngestService.ingest(new ProjectGenerator(53, 5).project("rebuildfails", 6, 4, 1), new IngestReport());
+        int indexed = searchIndex.size();
+        // los commits se leen bien y la lectura de issues falla a mitad de la reconstruccion
+        JdbcTemplate failing = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) throws DataAccessException {
+                if (sql.contains("FROM issue")) {
+                    throw new DataAccessResourceFailureException("issue table unavailable");
+                }
+                super.query(sql, rch, args);
+            }
+        };
+        ReflectionTestUtils.setField(searchIndexRebuilder, "jdbcTemplate", failing);
+        try {
+            assertThatThrownBy(() -> searchIndexRebuilder.rebuild()).isInstanceOf(DataAccessException.class);
+        } finally {
+            ReflectionTestUtils.setField(searchIndexRebuilder, "jdbcTemplate", jdbcTemplate);
+        }
+
+        assertThat(searchIndex.size()).isEqualTo(indexed);
+        assertThat(search("/gitminer/search?q=rebuildfails&type=issue").get("total").asLong()).isEqualTo(4);
+        // el writer reabierto sigue aceptando cambios
+        String issue = "{\"title\":\"afterabort\",\"state\":\"opened\",\"created_at\":\"2021-04-02T10:00:00Z\"}";
+        mockMvc.perform(post("/gitminer/issues").contentType(MediaType.APPLICATION_JSON).content(issue))
+                .andExpect(status().isOk());
+        assertThat(search("/gitminer/search?q=afterabort").get("total").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void malformedQueryIsABadRequest() throws Exception {
+        // con param: la plantilla de URL de MockMvc volveria a codificar un %22 escrito a mano
+        mockMvc.perform(get("/gitminer/search").param("q", "\"unclosed")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/gitminer/search").param("q", "(unbalanced")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/gitminer/search?q=x&type=project")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/gitminer/search").param("q", "\\\"escaped")).andExpect(status().isOk());
+    }
+
+    @Test
+    void deepPagesAreABadRequest() throws Exception {
+        mockMvc.perform(get("/gitminer/search?q=x&page=99&size=100")).andExpect(status().isOk());
+        mockMvc.perform(get("/gitminer/search?q=x&page=100&size=100")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/gitminer/search?q=x&size=100&page=" + Integer.MAX_VALUE))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void writesDuringARebuildAreKeptAndNeverSeeAHalfEmptyIndex() throws Exception {
+        projectIngestService.ingest(new ProjectGenerator(52, 50).project("rebuild-writes", 2000, 200, 2),
+                new IngestReport());
+        int indexed = searchIndex.size();
+
+        ExecutorService rebuilds = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> running = rebuilds.submit(() -> {
+                for (int r = 0; r < 10; r++) {
+                    searchIndexRebuilder.rebuild();
+                }
+                return null;
+            });
+            int created = 0;
+            while (!running.isDone()) {
+                String issue = "{\"title\":\"duringrebuild " + created + "\",\"state\":\"opened\","
+                        + "\"created_at\":\"2021-04-01T10:00:00Z\"}";
+                mockMvc.perform(post("/gitminer/issues").contentType(MediaType.APPLICATION_JSON).content(issue))
+                        .andExpect(status().isOk());
+                created++;
+                // una escritura durante la reconstruccion no publica el indice a medio rellenar
+                assertThat(searchIndex.size()).isGreaterThanOrEqualTo(indexed);
+            }
+            running.get();
+            assertThat(created).isPositive();
+            assertThat(search("/gitminer/search?q=duringrebuild&type=issue").get("total").asLong())
+                    .isEqualTo(created);
+        } finally {
+            rebuilds.shutdownNow();
+        }
+    }
+
+    private static Issue issue(String title) {
+        Issue issue = new Issue();
+        issue.setTitle(title);
+        issue.setState("opened");
+        issue.setCreatedAt(Instant.parse("2021-05-01T10:00:00Z"));
+        return issue;
+    }
+
+    private JsonNode search(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
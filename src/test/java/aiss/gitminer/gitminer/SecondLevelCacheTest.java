@@ -0,0 +1,96 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Lecturas repetidas servidas desde la cache de segundo nivel y la de consultas, colecciones desalojadas en los
+// DELETE y listados que se recalculan al escribir en la tabla
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class SecondLevelCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void repeatedReadsHitTheCache() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(11, 10).project("l2-reads", 20, 5, 2), new IngestReport());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        mockMvc.perform(get("/gitminer/projects/" + project.getId())).andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/gitminer/projects/" + project.getId())).andExpect(status().isOk());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void deletingACommitEvictsTheProjectCollection() throws Exception {
+        Project project = projectIngestService.ingest(
+                new ProjectGenerator(12, 10).project("l2-delete", 10, 2, 1), new IngestReport());
+        String url = "/gitminer/projects/" + project.getId();
+        JsonNode before = read(url);
+        long commitId = before.get("commits").get(0).get("id").asLong();
+
+        mockMvc.perform(delete("/gitminer/commits/" + commitId)).andExpect(status().isNoContent());
+
+        JsonNode after = read(url);
+        assertThat(after.get("commits")).hasSize(before.get("commits").size() - 1);
+    }
+
+    @Test
+    void repeatedListingsHitTheQueryCacheUntilTheTableChanges() throws Exception {
+        // fechas propias: la base de datos la comparten todos los tests
+        String url = "/gitminer/issues?since=2033-01-01T00:00:00Z&until=2033-01-02T00:00:00Z";
+        mockMvc.perform(post("/gitminer/issues").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"query cache 1\", \"created_at\": \"2033-01-01T00:00:00Z\"}"))
+                .andExpect(status().isOk());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        assertThat(read(url)).hasSize(1);
+        statistics.clear();
+        assertThat(read(url)).hasSize(1);
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+
+        mockMvc.perform(post("/gitminer/issues").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"query cache 2\", \"created_at\": \"2033-01-01T00:00:01Z\"}"))
+                .andExpect(status().isOk());
+        assertThat(read(url)).hasSize(2);
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String body = mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,213 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.gitminer.benchmark.ProjectGenerator;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.StreamingProjectIngestService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// La ingesta en streaming escribe lo mismo que POST /projects aunque el documento ocupe muchos bloques
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "gitminer.ingest.chunk-size=7"})
+@AutoConfigureMockMvc
+class StreamingIngestTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    StreamingProjectIngestService streamingProjectIngestService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void writesEveryChunkLinkedToTheProject() throws Exception {
+        Project project = new ProjectGenerator(5, 20).project("streaming-ingest", 50, 30, 3);
+
+        String response = mockMvc.perform(post("/gitminer/projects/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(project)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        assertThat(count("SELECT COUNT(*) FROM commit WHERE project_id = ?", id)).isEqualTo(50);
+        assertThat(count("SELECT COUNT(*) FROM issue WHERE project_id = ?", id)).isEqualTo(30);
+        assertThat(count("SELECT COUNT(*) FROM comment c JOIN issue i ON c.issue_id = i.id WHERE i.project_id = ?", id))
+                .isEqualTo(90);
+    }
+
+    @Test
+    void nameAfterTheArraysIsApplied() throws Exception {
+        JsonNode tree = objectMapper.valueToTree(new ProjectGenerator(6, 20).project("ignored", 10, 10, 1));
+        // mover name y web_url al final del documento
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("commits", tree.get("commits"));
+        body.set("issues", tree.get("issues"));
+        body.put("name", "streaming-ingest-late-name");
+        body.put("web_url", "https://example.com/late");
+
+        mockMvc.perform(post("/gitminer/projects/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(body)))
+                .andExpect(status().isCreated());
+
+        assertThat(count("SELECT COUNT(*) FROM project WHERE name = ?", "streaming-ingest-late-name")).isEqualTo(1);
+    }
+
+    @Test
+    void missingNameIsRejected() throws Exception {
+        mockMvc.perform(post("/gitminer/projects/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"web_url\": \"https://example.com/x\", \"commits\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void chunksAreCommittedWhileTheDocumentIsRead() throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(new ProjectGenerator(7, 20).project("streaming-bound", 70, 35, 2));
+        // lecturas cortas para observar entre bloque y bloque
+        List<Long> committed = new ArrayList<>();
+        AtomicInteger pending = new AtomicInteger();
+        InputStream watched = new FilterInputStream(new ByteArrayInputStream(body)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                EntityManagerHolder holder =
+                        (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+                if (TransactionSynchronizationManager.isActualTransactionActive() || holder != null
+                        && holder.getEntityManager().unwrap(SessionImplementor.class).getActionQueue()
+                        .hasAfterTransactionActions()) {
+                    pending.incrementAndGet();
+                }
+                committed.add(count("SELECT COUNT(*) FROM commit c JOIN project p ON c.project_id = p.id "
+                        + "WHERE p.name = ?", "streaming-bound"));
+                return super.read(b, off, Math.min(len, 512));
+            }
+        };
+
+        Project project = streamingProjectIngestService.ingest(watched, new IngestReport());
+
+        // ninguna transaccion sigue abierta (ni acciones de insercion retenidas) mientras se lee el documento
+        assertThat(pending.get()).isZero();
+        // y los bloques de commits ya escritos son visibles desde otra conexion antes de terminar
+        assertThat(committed).anyMatch(n -> n > 0 && n < 70);
+        assertThat(count("SELECT COUNT(*) FROM commit WHERE project_id = ?", project.getId())).isEqualTo(70);
+    }
+
+    @Test
+    void lateDuplicateNameDiscardsTheCommittedChunks() throws Exception {
+        String name = "streaming-ingest-duplicate";
+        mockMvc.perform(post("/gitminer/projects/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(new ProjectGenerator(8, 20).project(name, 3, 2, 1))))
+                .andExpect(status().isCreated());
+        long projects = count("SELECT COUNT(*) FROM project WHERE id > ?", 0L);
+        long commits = count("SELECT COUNT(*) FROM commit WHERE id > ?", 0L);
+
+        JsonNode tree = objectMapper.valueToTree(new ProjectGenerator(9, 20).project("ignored", 20, 10, 1));
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("commits", tree.get("commits"));
+        body.set("issues", tree.get("issues"));
+        body.put("name", name);
+        body.put("web_url", "https://example.com/duplicate");
+        mockMvc.perform(post("/gitminer/projects/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(body)))
+                .andExpect(status().isCreated());
+
+        assertThat(count("SELECT COUNT(*) FROM project WHERE id > ?", 0L)).isEqualTo(projects);
+        assertThat(count("SELECT COUNT(*) FROM commit WHERE id > ?", 0L)).isEqualTo(commits);
+    }
+
+    @Test
+    void webUrlStaysNullUntilTheEnd() throws Exception {
+        String name = "streaming-ingest-late-url";
+        JsonNode tree = objectMapper.valueToTree(new ProjectGenerator(10, 20).project(name, 30, 0, 0));
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("name", name);
+        body.set("commits", tree.get("commits"));
+        body.put("web_url", "https://example.com/late-url");
+        List<String> urls = new ArrayList<>();
+        InputStream watched = new FilterInputStream(new ByteArrayInputStream(objectMapper.writeValueAsBytes(body))) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                urls.addAll(jdbcTemplate.queryForList("SELECT COALESCE(web_url, 'null') FROM project WHERE name = ?",
+                        String.class, name));
+                return super.read(b, off, Math.min(len, 512));
+            }
+        };
+
+        streamingProjectIngestService.ingest(watched, new IngestReport());
+
+        assertThat(urls).isNotEmpty().containsOnly("null");
+        assertThat(jdbcTemplate.queryForObject("SELECT web_url FROM project WHERE name = ?", String.class, name))
+                .isEqualTo("https://example.com/late-url");
+    }
+
+    @Test
+    void concurrentStreamsWithTheSameNameCreateOneProject() throws Exception {
+        String name = "streaming-ingest-concurrent";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Project>> results = new ArrayList<>();
+            for (int seed = 11; seed <= 12; seed++) {
+                byte[] body = objectMapper.writeValueAsBytes(new ProjectGenerator(seed, 20).project(name, 40, 10, 1));
+                results.add(executor.submit(() -> streamingProjectIngestService.ingest(
+                        new FilterInputStream(new ByteArrayInputStream(body)) {
+                            @Override
+                            public int read(byte[] b, int off, int len) throws IOException {
+                                // lecturas lentas para que las dos ingestas se solapen
+                                try {
+                                    Thread.sleep(2);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                return super.read(b, off, Math.min(len, 256));
+                            }
+                        }, new IngestReport())));
+            }
+            assertThat(results.get(0).get().getId()).isEqualTo(results.get(1).get().getId());
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(count("SELECT COUNT(*) FROM project WHERE name = ?", name)).isEqualTo(1);
+    }
+
+    private long count(String sql, Object arg) {
+        return jdbcTemplate.queryForObject(sql, Long.class, arg);
+    }
+}
@@ -0,0 +1,92 @@
+package aiss.gitminer.gitminer;
+
+import aiss.gitminer.exception.UnidentifiedUserException;
+import aiss.gitminer.model.Comment;
+import aiss.gitminer.model.Issue;
+import aiss.gitminer.model.User;
+import aiss.gitminer.repository.UserRepository;
+import aiss.gitminer.service.UserResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Autores y asignados resueltos contra gmuser: por web_url, por username si la web_url no esta guardada,
+// una sola fila nueva por username dentro de un lote, y rechazo de los usuarios sin ninguno de los dos
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class UserResolverTest {
+
+    @Autowired
+    UserResolver userResolver;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void resolvesByWebUrl() {
+        User stored = userRepository.save(user("resolver-web", "https://example.com/resolver-web"));
+        Issue issue = issue(user("resolver-web-renamed", "https://example.com/resolver-web"), null);
+
+        assertThat(userResolver.resolve(List.of(issue))).isZero();
+        assertThat(issue.getAuthor().getId()).isEqualTo(stored.getId());
+    }
+
+    @Test
+    void fallsBackToTheUsername() {
+        User stored = userRepository.save(user("resolver-moved", "https://example.com/resolver-moved"));
+        Issue issue = issue(user("resolver-moved", "https://example.com/resolver-moved-elsewhere"),
+                user("resolver-moved", null));
+
+        assertThat(userResolver.resolve(List.of(issue))).isZero();
+        assertThat(issue.getAuthor().getId()).isEqualTo(stored.getId());
+        assertThat(issue.getAssignee().getId()).isEqualTo(stored.getId());
+    }
+
+    @Test
+    void insertsUnknownUsersOnce() {
+        Issue issue = issue(user("resolver-new", "https://example.com/resolver-new"),
+                user("resolver-new", "https://example.com/resolver-new"));
+
+        assertThat(userResolver.resolve(List.of(issue))).isEqualTo(1);
+        assertThat(userRepository.findByUsername("resolver-new")).get()
+                .extracting(User::getId).isEqualTo(issue.getAuthor().getId());
+        assertThat(issue.getAssignee().getId()).isEqualTo(issue.getAuthor().getId());
+    }
+
+    @Test
+    void insertsOneRowPerUsernameWithinABatch() {
+        // el mismo username con dos web_url distintas: username es unico, asi que es un solo usuario
+        Issue issue = issue(user("resolver-twice", "https://example.com/resolver-twice-1"),
+                user("resolver-twice", "https://example.com/resolver-twice-2"));
+        issue.getComments().add(new Comment("resolver comment", user("resolver-twice", null), Instant.EPOCH, null));
+
+        assertThat(userResolver.resolve(List.of(issue))).isEqualTo(1);
+        Long id = issue.getAuthor().getId();
+        assertThat(issue.getAssignee().getId()).isEqualTo(id);
+        assertThat(issue.getComments().get(0).getAuthor().getId()).isEqualTo(id);
+    }
+
+    @Test
+    void rejectsUsersWithoutWebUrlOrUsername() {
+        Issue issue = issue(user("resolver-rejected", "https://example.com/resolver-rejected"),
+                new User(null, "Nobody", null, null));
+
+        assertThatThrownBy(() -> userResolver.resolve(List.of(issue))).isInstanceOf(UnidentifiedUserException.class);
+        assertThat(userRepository.findByUsername("resolver-rejected")).isEmpty();
+    }
+
+    private static User user(String username, String webUrl) {
+        return new User(username, username, null, webUrl);
+    }
+
+    private static Issue issue(User author, User assignee) {
+        return new Issue("resolver issue", null, "opened", Instant.EPOCH, Instant.EPOCH, null, new ArrayList<>(),
+                author, assignee, 0, new ArrayList<>());
+    }
+}
@@ -0,0 +1,63 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.GitMinerApplication;
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ejecutar con: mvn test -Dgitminer.benchmark=true -Dtest=ProfileStartupBenchmarkTest
+// Compara el perfil por defecto (H2 en memoria) con el perfil prod (H2 en fichero, pools de lectura y
+// escritura): tiempo de arranque en frio, filas/s de ingesta y arranque de nuevo sobre los datos ya escritos.
+@EnabledIfSystemProperty(named = "gitminer.benchmark", matches = "true")
+class ProfileStartupBenchmarkTest {
+
+    private static final int PROJECTS = 10;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void inMemoryVersusPersistentProfile() {
+        run("in-memory", new String[0], "spring.datasource.url=jdbc:h2:mem:profile-benchmark");
+        run("prod", new String[] {"prod"}, "gitminer.data-dir=" + dataDir);
+        // segundo arranque del perfil prod: abre la base de datos existente y actualiza el esquema
+        run("prod (restart)", new String[] {"prod"}, "gitminer.data-dir=" + dataDir);
+    }
+
+    private void run(String label, String[] profiles, String datasource) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GitMinerApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0", "spring.jpa.show-sql=false", datasource)
+                .run()) {
+            double startupMs = (System.nanoTime() - start) / 1e6;
+
+            ProjectIngestService ingest = context.getBean(ProjectIngestService.class);
+            ProjectGenerator generator = new ProjectGenerator(label.hashCode(), 200);
+            List<Project> projects = new ArrayList<>();
+            for (int p = 0; p < PROJECTS; p++) {
+                projects.add(generator.project(label + "-" + p, 1_000, 500, 3));
+            }
+            long rows = 0;
+            long ingestStart = System.nanoTime();
+            for (Project project : projects) {
+                IngestReport report = new IngestReport();
+                ingest.ingest(project, report);
+                rows += report.getTotalRows();
+            }
+            double ingestSeconds = (System.nanoTime() - ingestStart) / 1e9;
+
+            System.out.printf("%-16s startup %7.0f ms  ingest %9.0f rows/s (%d rows in %.1f s)%n",
+                    label, startupMs, rows / ingestSeconds, rows, ingestSeconds);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.model.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Genera grafos de proyecto sinteticos y reproducibles (misma semilla, mismos datos)
+public class ProjectGenerator {
+
+    private static final String[] STATES = {"opened", "closed"};
+    private static final String[] LABELS = {"bug", "enhancement", "question", "documentation", "performance"};
+    private static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+    private final Random random;
+    private final int users;
+
+    public ProjectGenerator(long seed, int users) {
+        this.random = new Random(seed);
+        this.users = users;
+    }
+
+    public Project project(String name, int commits, int issues, int commentsPerIssue) {
+        List<Commit> commitList = new ArrayList<>(commits);
+        for (int i = 0; i < commits; i++) {
+            int author = random.nextInt(users);
+            commitList.add(new Commit(name + " commit " + i, "message " + i + " of " + name,
+                    "author" + author, "author" + author + "@example.com",
+                    date(i), "https://example.com/" + name + "/commit/" + i));
+        }
+
+        List<Issue> issueList = new ArrayList<>(issues);
+        for (int i = 0; i < issues; i++) {
+            List<Comment> comments = new ArrayList<>(commentsPerIssue);
+            for (int c = 0; c < commentsPerIssue; c++) {
+                comments.add(new Comment(name + " comment " + c + " on issue " + i, user(),
+                        date(i * commentsPerIssue + c), null));
+            }
+            List<String> labels = new ArrayList<>();
+            labels.add(LABELS[random.nextInt(LABELS.length)]);
+            String state = STATES[random.nextInt(STATES.length)];
+            issueList.add(new Issue(name + " issue " + i, "description of issue " + i, state,
+                    date(i), date(i + 1), state.equals("closed") ? date(i + 2) : null,
+                    labels, user(), random.nextBoolean() ? user() : null, random.nextInt(10), comments));
+        }
+        return new Project(name, "https://example.com/" + name, commitList, issueList);
+    }
+
+    // filas que escribe la ingesta de un proyecto generado, sin contar usuarios
+    public static long rows(Project project) {
+        long rows = 1 + project.getCommits().size();
+        for (Issue i : project.getIssues()) {
+            rows += 1 + i.getComments().size() + i.getLabels().size();
+        }
+        return rows;
+    }
+
+    private User user() {
+        int u = random.nextInt(users);
+        return new User("user" + u, "User " + u, "https://example.com/avatars/" + u,
+                "https://example.com/user" + u);
+    }
+
+    private Instant date(int offsetMinutes) {
+        return EPOCH.plusSeconds(offsetMinutes * 60L);
+    }
+}
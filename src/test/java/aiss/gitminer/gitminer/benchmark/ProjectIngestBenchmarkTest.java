@@ -0,0 +1,53 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.model.Project;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Ejecutar con: mvn test -Dgitminer.benchmark=true -Dtest=ProjectIngestBenchmarkTest
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "gitminer.benchmark", matches = "true")
+class ProjectIngestBenchmarkTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void postLargeProject() throws Exception {
+        ProjectGenerator generator = new ProjectGenerator(42, 2_000);
+        ingest(generator, "warmup", 1_000, 500, 2);
+
+        for (int size : new int[] {5_000, 20_000}) {
+            Project project = generator.project("bench-" + size, size, size, 5);
+            long rows = ProjectGenerator.rows(project);
+            byte[] body = objectMapper.writeValueAsBytes(project);
+
+            long start = System.nanoTime();
+            mockMvc.perform(post("/gitminer/projects").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated());
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("ingest %d commits / %d issues: %d rows in %.2fs = %.0f rows/s%n",
+                    size, size, rows, seconds, rows / seconds);
+        }
+    }
+
+    private void ingest(ProjectGenerator generator, String name, int commits, int issues, int comments) throws Exception {
+        mockMvc.perform(post("/gitminer/projects").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(generator.project(name, commits, issues, comments))))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,130 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.GitMinerApplication;
+import aiss.gitminer.config.VirtualThreads;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Ejecutar con: mvn test -Dgitminer.benchmark=true -Dtest=ThreadModeLoadTest
+// Arranca la aplicacion dos veces (hilos de plataforma y virtuales) y mide throughput y p99 con muchos
+// clientes concurrentes. El modo virtual necesita una JVM 21+; en otra JVM el test falla en vez de
+// comparar dos pasadas con hilos de plataforma.
+@EnabledIfSystemProperty(named = "gitminer.benchmark", matches = "true")
+class ThreadModeLoadTest {
+
+    private static final int CLIENTS = 400;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(20);
+    private static final String[] PATHS = {"/gitminer/issues?size=20", "/gitminer/projects?size=5"};
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        assertThat(VirtualThreads.isAvailable())
+                .as("ThreadModeLoadTest needs a JVM with virtual threads (21+), running on %s", Runtime.version())
+                .isTrue();
+        for (boolean virtual : new boolean[] {false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                seed(context);
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                for (String path : PATHS) {
+                    URI uri = URI.create("http://localhost:" + port + path);
+                    load(uri, WARMUP);
+                    Result result = load(uri, MEASURE);
+                    System.out.printf("%-8s %-28s %8.0f req/s  p50 %6.1f ms  p99 %6.1f ms  errors %d%n",
+                            virtual ? "virtual" : "platform", path, result.throughput(),
+                            result.percentile(0.50), result.percentile(0.99), result.errors);
+                }
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(GitMinerApplication.class).properties(
+                "server.port=0",
+                "spring.jpa.show-sql=false",
+                "spring.datasource.url=jdbc:h2:mem:load-" + (virtual ? "virtual" : "platform"),
+                "gitminer.threads.virtual=" + virtual).run();
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        ProjectIngestService ingest = context.getBean(ProjectIngestService.class);
+        ProjectGenerator generator = new ProjectGenerator(21, 500);
+        for (int p = 0; p < 20; p++) {
+            ingest.ingest(generator.project("load-" + p, 200, 200, 3), new IngestReport());
+        }
+    }
+
+    private Result load(URI uri, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(16)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            latencies.add(System.nanoTime() - start);
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return new Result(new ArrayList<>(latencies), errors.get(), duration);
+    }
+
+    private static class Result {
+        final List<Long> latencies;
+        final long errors;
+        final Duration duration;
+
+        Result(List<Long> latencies, long errors, Duration duration) {
+            Collections.sort(latencies);
+            this.latencies = latencies;
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        double throughput() {
+            return latencies.size() / (double) duration.toSeconds();
+        }
+
+        double percentile(double p) {
+            if (latencies.isEmpty()) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(p * latencies.size()) - 1;
+            return latencies.get(Math.max(index, 0)) / 1e6;
+        }
+    }
+}
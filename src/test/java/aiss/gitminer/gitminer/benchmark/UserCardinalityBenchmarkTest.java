@@ -0,0 +1,61 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Ejecutar con: mvn test -Dgitminer.benchmark=true -Dtest=UserCardinalityBenchmarkTest
+// Proyectos que comparten contribuidores: cada usuario debe quedar una sola vez en gmuser, sin importar
+// cuantas issues y comentarios lo referencien. Imprime filas, espacio de la tabla y el coste del join.
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "gitminer.benchmark", matches = "true")
+class UserCardinalityBenchmarkTest {
+
+    private static final int PROJECTS = 20;
+    private static final int JOIN_RUNS = 20;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sharedAuthorsAreStoredOnce() {
+        ProjectGenerator generator = new ProjectGenerator(21, 200);
+        long start = System.nanoTime();
+        for (int p = 0; p < PROJECTS; p++) {
+            projectIngestService.ingest(generator.project("cardinality-" + p, 50, 200, 5), new IngestReport());
+        }
+        double ingestSeconds = (System.nanoTime() - start) / 1e9;
+
+        long references = count("SELECT COUNT(author_id) + COUNT(assignee_id) FROM issue")
+                + count("SELECT COUNT(author_id) FROM comment");
+        long users = count("SELECT COUNT(*) FROM gmuser");
+        long distinctUrls = count("SELECT COUNT(DISTINCT web_url) FROM gmuser");
+        long diskBytes = count("SELECT DISK_SPACE_USED('GMUSER')");
+
+        String join = "SELECT COUNT(*) FROM issue i JOIN gmuser a ON a.id = i.author_id"
+                + " LEFT JOIN gmuser s ON s.id = i.assignee_id JOIN comment c ON c.issue_id = i.id"
+                + " JOIN gmuser ca ON ca.id = c.author_id";
+        count(join);
+        start = System.nanoTime();
+        for (int r = 0; r < JOIN_RUNS; r++) {
+            count(join);
+        }
+        double joinMillis = (System.nanoTime() - start) / 1e6 / JOIN_RUNS;
+
+        System.out.printf("ingest %d projects in %.2fs; %d user references -> %d gmuser rows (%d distinct web_url), "
+                        + "gmuser %d KB; issue/comment/user join %.1f ms%n",
+                PROJECTS, ingestSeconds, references, users, distinctUrls, diskBytes / 1024, joinMillis);
+    }
+
+    private long count(String sql) {
+        Long value = jdbcTemplate.queryForObject(sql, Long.class);
+        return value != null ? value : 0;
+    }
+}
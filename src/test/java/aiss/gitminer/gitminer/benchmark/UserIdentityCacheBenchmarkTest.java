@@ -0,0 +1,58 @@
+package aiss.gitminer.gitminer.benchmark;
+
+import aiss.gitminer.model.Project;
+import aiss.gitminer.service.IngestReport;
+import aiss.gitminer.service.ProjectIngestService;
+import aiss.gitminer.service.UserIdentityCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Ejecutar con: mvn test -Dgitminer.benchmark=true -Dtest=UserIdentityCacheBenchmarkTest
+// Muchos proyectos pequeños con los mismos contribuidores: el caso en el que la cache de usuarios ayuda
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "gitminer.benchmark", matches = "true")
+class UserIdentityCacheBenchmarkTest {
+
+    private static final int PROJECTS = 50;
+
+    @Autowired
+    ProjectIngestService projectIngestService;
+
+    @Autowired
+    UserIdentityCache userIdentityCache;
+
+    @AfterEach
+    void restoreCache() {
+        userIdentityCache.setEnabled(true);
+    }
+
+    @Test
+    void ingestWithAndWithoutCache() {
+        ProjectGenerator generator = new ProjectGenerator(42, 3_000);
+        run(generator, "warmup", true);
+
+        for (int round = 0; round < 2; round++) {
+            run(generator, "disabled-" + round, false);
+            run(generator, "enabled-" + round, true);
+        }
+    }
+
+    private void run(ProjectGenerator generator, String name, boolean cacheEnabled) {
+        userIdentityCache.setEnabled(cacheEnabled);
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int p = 0; p < PROJECTS; p++) {
+            Project project = generator.project(name + "-" + p, 50, 200, 5);
+            rows += ProjectGenerator.rows(project);
+            projectIngestService.ingest(project, new IngestReport());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%s (cache %s): %d projects, %d rows in %.2fs = %.0f rows/s, %s%n",
+                name, cacheEnabled ? "on" : "off", PROJECTS, rows, seconds, rows / seconds,
+                userIdentityCache.stats());
+    }
+}